@@ -1,23 +1,53 @@
 import gateway.*;
+import handlers.DispatchHandler;
 import useCases.*;
 
+import java.util.concurrent.Executor;
+
 public class App {
     public static void main(String[] args) {
         final String userDataFileDirectory = "data/userData.txt";
         final String postDataFileDirectory = "data/postData.txt";
         final String commentDataFileDirectory = "data/commentData.txt";
+        final String historyDataFileDirectory = "data/historyData.txt";
         IReader reader1 = new Reader(userDataFileDirectory);
         IReader reader2 = new Reader(postDataFileDirectory);
         IReader reader3 = new Reader(commentDataFileDirectory);
+        IReader reader4 = new Reader(historyDataFileDirectory);
         IWriter writer1 = new Writer(userDataFileDirectory);
         IWriter writer2 = new Writer(postDataFileDirectory);
         IWriter writer3 = new Writer(commentDataFileDirectory);
+        IWriter writer4 = new Writer(historyDataFileDirectory);
 
-        Server server = new Server(new ManagerData(
-                new AccountManager(reader1, writer1, new AccountSorter()),
+        // run with -DsearchThreads=N to score search candidates on N threads, and -DsearchSequentialThreshold=N to
+        // score up to N candidates on the calling thread
+        ManagerData managerData = new ManagerData(
+                new AccountManager(reader1, writer1,
+                        new ParallelAccountSorter(
+                                Integer.getInteger("searchThreads", Runtime.getRuntime().availableProcessors()),
+                                Integer.getInteger("searchSequentialThreshold", 4096)),
+                        new TrigramIndex()),
                 new PostManager(reader2, writer2, new PostTimeSorter()),
-                new CommentManager(reader3, writer3, new CommentTimeSorter()))
-        );
+                new CommentManager(reader3, writer3, new CommentTimeSorter()),
+                new LoginHistoryManager(reader4, writer4));
+        // run with -DsingleWriter=true to apply every write on one thread and save after each batch of writes
+        if (Boolean.getBoolean("singleWriter")) {
+            managerData.startWritePipeline(10000, 1000);
+            // apply and save the writes still queued when the server is stopped
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    managerData.stopWritePipeline();
+                } catch (InterruptedException e) {
+                    System.out.println(e.getMessage());
+                }
+            }, "write-pipeline-shutdown"));
+        }
+        // run with -Ddispatch=virtual to handle requests on virtual threads, or -Ddispatch=io to handle them on the IO
+        // threads instead of a pool of worker threads
+        Executor requestExecutor = DispatchHandler.createExecutor(
+                System.getProperty("dispatch", DispatchHandler.WORKER),
+                Runtime.getRuntime().availableProcessors() * 8, 10000);
+        Server server = new Server(managerData, requestExecutor);
         server.start();
     }
 }
\ No newline at end of file
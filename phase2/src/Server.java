@@ -5,18 +5,30 @@ import io.undertow.server.RoutingHandler;
 import io.undertow.util.Headers;
 import useCases.ManagerData;
 
+import java.util.concurrent.Executor;
+
 public class Server {
     private HttpHandler ROUTES;
     private Undertow server;
 
-    public Server(ManagerData managerData) {
+    /**
+     * Constructor of the web server
+     *
+     * @param managerData an object that groups use cases together
+     * @param requestExecutor the executor that requests are handled on, or null to handle them on the IO threads
+     */
+    public Server(ManagerData managerData, Executor requestExecutor) {
+        DispatchHandler dispatchHandler = new DispatchHandler(requestExecutor)
+                // a stream holds its connection open without blocking a thread, so it stays on the IO thread
+                .route("/streamComments/", null);
         LandingHandlers landingHandlers = new LandingHandlers(managerData);
         AccountHandlers accountHandlers = new AccountHandlers(managerData);
-        AdminHandlers adminHandlers = new AdminHandlers(managerData);
+        AdminHandlers adminHandlers = new AdminHandlers(managerData, dispatchHandler);
         CommentHandlers commentHandlers = new CommentHandlers(managerData);
+        CommentStreamHandlers commentStreamHandlers = new CommentStreamHandlers(managerData);
         PostHandlers postHandlers = new PostHandlers(managerData);
 
-        ROUTES = new RoutingHandler()
+        RoutingHandler routes = new RoutingHandler()
                 .get("/login", landingHandlers::login)
                 .post("/login", landingHandlers::loginRedirect)
                 .get("/", new HomeHandler(managerData))
@@ -31,25 +43,35 @@ public class Server {
                 .get("/viewSelfProfile", postHandlers::viewSelfProfile)
                 .delete("/deletePost/{postId}", postHandlers::deletePost)
                 .post("/addComment/{postId}", commentHandlers::addComment)
+                .post("/addComments", commentHandlers::addComments)
                 .get("/viewComments/{postId}", commentHandlers::viewComments)
+                .get("/streamComments/{postId}", commentStreamHandlers.streamComments())
                 .get("/viewPost/{postId}", postHandlers::viewPost)
                 .get("/viewProfile/{username}", postHandlers::viewProfile)
+                .get("/viewUserComments/{username}", commentHandlers::viewUserComments)
                 .delete("/follow/{username}", accountHandlers::follow)
                 .delete("/unfollow/{username}", accountHandlers::unfollow)
                 .get("/searchUsername", accountHandlers::searchUsername)
                 .get("/searchUsernameResults", accountHandlers::searchUsernameResults)
+                .get("/autocompleteUsername", accountHandlers::autocompleteUsername)
                 .get("/followers/{username}", accountHandlers::followers)
                 .get("/following/{username}", accountHandlers::following)
                 .delete("/promote/{username}", adminHandlers::promote)
                 .delete("/deleteUser/{username}", adminHandlers::deleteUser)
                 .delete("/ban/{username}", adminHandlers::ban)
                 .delete("/unban/{username}", adminHandlers::unban)
+                .post("/moderate", adminHandlers::moderate)
+                .get("/nearDuplicates", adminHandlers::nearDuplicates)
+                .get("/metrics", adminHandlers::metrics)
                 .get("/feed", postHandlers::getFeed)
                 .setFallbackHandler(exchange -> {
                     exchange.setStatusCode(404);
                     exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
                     exchange.getResponseSender().send("Page Not Found");
                 });
+        // every request is moved off the IO thread and matched to the user whose session cookie it carries before it
+        // is routed
+        ROUTES = dispatchHandler.setNext(new SessionHandler(managerData.getSessionManager(), routes));
 
         server = Undertow.builder()
                 .addHttpListener(8080, "localhost", ROUTES)
@@ -5,11 +5,17 @@ import exception.UserFollowedException;
 import exception.UserNotFollowedException;
 import exception.UsernameNotFoundException;
 import useCases.AccountManager;
+import useCases.AccountPage;
+import useCases.FollowOverlap;
+import useCases.LoginHistoryManager;
 import useCases.ManagerData;
+import useCases.SessionManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +24,14 @@ public class AccountController {
      * a use case responsible for managing accounts
      */
     private AccountManager accountManager;
+    /**
+     * a use case responsible for managing login histories
+     */
+    private LoginHistoryManager loginHistoryManager;
+    /**
+     * a use case that keeps track of logged in users
+     */
+    private SessionManager sessionManager;
     /**
      * an object that groups use cases in 1 class
      */
@@ -30,37 +44,63 @@ public class AccountController {
      */
     public AccountController(ManagerData managerData) {
         accountManager = managerData.getAccountManager();
+        loginHistoryManager = managerData.getLoginHistoryManager();
+        sessionManager = managerData.getSessionManager();
         this.managerData = managerData;
     }
 
     /**
-     * Returns a list of dates for login history
+     * Returns one page of the login history of a user
      *
-     * @return a list of dates
+     * @param user a username
+     * @param page the index of the page, starting from 0
+     * @param pageSize the number of recent logins on a page
+     * @return the dates of the recent logins on the page ("dates"), whether there is a next page ("hasNext"), and the
+     * number of older logins on each day ("dailyCounts")
      */
-    public List<String> viewHistory() {
+    public Map<String, Object> viewHistory(String user, int page, int pageSize) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+        int offset = Math.max(page, 0) * pageSize;
         List<String> dates = new ArrayList<>();
-        for (LocalDateTime date : accountManager.getUserHistory(managerData.getCurrentUser())) {
+        for (LocalDateTime date : loginHistoryManager.getRecentLogins(user, offset, pageSize)) {
             dates.add(formatter.format(date));
         }
-        return dates;
+        DateTimeFormatter dayFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+        List<Map<String, String>> dailyCounts = new ArrayList<>();
+        for (Map.Entry<LocalDate, Integer> dailyCount : loginHistoryManager.getDailyLoginCounts(user).entrySet()) {
+            Map<String, String> day = new HashMap<>();
+            day.put("day", dayFormatter.format(dailyCount.getKey()));
+            day.put("count", dailyCount.getValue().toString());
+            dailyCounts.add(day);
+        }
+        Map<String, Object> history = new HashMap<>();
+        history.put("dates", dates);
+        history.put("hasNext", offset + pageSize < loginHistoryManager.countRecentLogins(user));
+        history.put("dailyCounts", dailyCounts);
+        return history;
     }
 
     /**
-     * Logs the current user out
+     * Logs a user out by ending their session
+     *
+     * @param sessionToken the token of the session to be ended
      */
-    public void logout() {
+    public void logout(String sessionToken) {
         managerData.save();
-        managerData.setCurrentUser(null);
+        sessionManager.invalidate(sessionToken);
     }
 
     /**
-     * Deletes the account of the current user
+     * Deletes the account of a user and ends all of their sessions
+     *
+     * @param user a username
      */
-    public void deleteSelf() {
-        accountManager.deleteSelf(managerData.getCurrentUser());
-        managerData.setCurrentUser(null);
+    public void deleteSelf(String user) {
+        managerData.write(() -> {
+            accountManager.deleteSelf(user);
+            loginHistoryManager.deleteHistoryOf(user);
+            sessionManager.invalidateAll(List.of(user));
+        });
     }
 
     /**
@@ -71,7 +111,7 @@ public class AccountController {
      * @return whether user1 follows user2
      */
     public boolean isFollowing(String user1, String user2) {
-        return accountManager.getFolloweesOf(user1).contains(user2);
+        return accountManager.isFollowing(user1, user2);
     }
 
     /**
@@ -81,11 +121,13 @@ public class AccountController {
      * @param user2 a username
      */
     public void follow(String user1, String user2) {
-        try {
-            accountManager.follow(user1, user2);
-        } catch (UsernameNotFoundException | UserFollowedException e) {
-            System.out.println(e.getMessage());
-        }
+        managerData.write(() -> {
+            try {
+                accountManager.follow(user1, user2);
+            } catch (UsernameNotFoundException | UserFollowedException e) {
+                System.out.println(e.getMessage());
+            }
+        });
     }
 
     /**
@@ -95,70 +137,164 @@ public class AccountController {
      * @param user2 a username
      */
     public void unfollow(String user1, String user2) {
-        try {
-            accountManager.unfollow(user1, user2);
-        } catch (UsernameNotFoundException | UserNotFollowedException e) {
-            System.out.println(e.getMessage());
-        }
+        managerData.write(() -> {
+            try {
+                accountManager.unfollow(user1, user2);
+            } catch (UsernameNotFoundException | UserNotFollowedException e) {
+                System.out.println(e.getMessage());
+            }
+        });
     }
 
     /**
      * Returns a list of users whose username most closely matches a search query
      *
+     * @param viewer the username of the user searching
      * @param targetUsername a username search query
      * @param limit the maximum number of accounts to be displayed
      * @return a list of users
      */
-    public List<Map<String, String>> search(String targetUsername, int limit) {
+    public List<Map<String, String>> search(String viewer, String targetUsername, int limit) {
         DataMapper accountModel = new DataMapper();
         accountModel.addItems(
                 accountManager.search(targetUsername, limit),
                 new String[] { "username", "isAdmin" }
         );
-        return putFolloweeStatus(accountModel.getModel());
+        return putFolloweeStatus(accountModel.getModel(), viewer);
     }
 
     /**
-     * Returns a list of followers of a user
+     * Returns usernames that complete a partially typed username
+     *
+     * @param prefix the start of a username
+     * @param limit the maximum number of usernames to be returned
+     * @return a list of usernames starting with prefix
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        return accountManager.autocomplete(prefix, limit);
+    }
+
+    /**
+     * Returns the number of followers of a user
      *
      * @param user a username
-     * @return a list of users that follow user
+     * @return the number of users that follow user
      */
-    public List<Map<String, String>> getFollowers(String user) {
-        DataMapper accountModel = new DataMapper();
-        accountModel.addItems(
-                accountManager.getFollowerListOf(user),
-                new String[] { "username", "isAdmin"}
-        );
-        return putFolloweeStatus(accountModel.getModel());
+    public int countFollowers(String user) {
+        return accountManager.countFollowersOf(user);
     }
 
     /**
-     * Returns a list of followees of a user
+     * Returns the number of followees of a user
      *
      * @param user a username
-     * @return a list of users followed by user
+     * @return the number of users followed by user
      */
-    public List<Map<String, String>> getFollowing(String user) {
+    public int countFollowing(String user) {
+        return accountManager.countFolloweesOf(user);
+    }
+
+    /**
+     * Returns users that a user may want to follow
+     *
+     * @param user a username
+     * @param limit the maximum number of users to be returned
+     * @return a list of recommended users with the number of user's followees that follow them
+     */
+    public List<Map<String, String>> getRecommendations(String user, int limit) {
+        List<Map<String, String>> recommendations = new ArrayList<>();
+        for (Map.Entry<String, Integer> recommendation : accountManager.recommendFollowees(user, limit).entrySet()) {
+            Map<String, String> account = new HashMap<>();
+            account.put("username", recommendation.getKey());
+            account.put("mutuals", recommendation.getValue().toString());
+            recommendations.add(account);
+        }
+        return recommendations;
+    }
+
+    /**
+     * Returns the users followed by a viewer that follow another user
+     *
+     * @param viewer a username
+     * @param user a username
+     * @return the number of viewer's followees that follow user ("count"), a few of their usernames ("sample") and
+     * the number of the rest ("others")
+     */
+    public Map<String, Object> getFolloweesFollowing(String viewer, String user) {
+        return toModel(accountManager.getFolloweesFollowing(viewer, user, 3));
+    }
+
+    /**
+     * Returns the users that follow a user and are followed back by them
+     *
+     * @param user a username
+     * @return the number of mutual follows of user ("count"), a few of their usernames ("sample") and the number of
+     * the rest ("others")
+     */
+    public Map<String, Object> getMutualFollows(String user) {
+        return toModel(accountManager.getMutualFollows(user, 3));
+    }
+
+    private Map<String, Object> toModel(FollowOverlap overlap) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("count", overlap.getCount());
+        model.put("sample", overlap.getSample());
+        model.put("others", overlap.getCount() - overlap.getSample().size());
+        return model;
+    }
+
+    /**
+     * Returns one page of the followers of a user
+     *
+     * @param viewer the username of the user viewing the page
+     * @param user a username
+     * @param cursor the cursor of the page, or -1 for the first page
+     * @param limit the maximum number of users on the page
+     * @return the users on the page ("accounts") and the cursor of the next page ("nextCursor"), which is -1 on the
+     * last page
+     */
+    public Map<String, Object> getFollowers(String viewer, String user, int cursor, int limit) {
+        return toModel(accountManager.getFollowerPageOf(user, cursor, limit), viewer);
+    }
+
+    /**
+     * Returns one page of the followees of a user
+     *
+     * @param viewer the username of the user viewing the page
+     * @param user a username
+     * @param cursor the cursor of the page, or -1 for the first page
+     * @param limit the maximum number of users on the page
+     * @return the users on the page ("accounts") and the cursor of the next page ("nextCursor"), which is -1 on the
+     * last page
+     */
+    public Map<String, Object> getFollowing(String viewer, String user, int cursor, int limit) {
+        return toModel(accountManager.getFolloweePageOf(user, cursor, limit), viewer);
+    }
+
+    private Map<String, Object> toModel(AccountPage page, String viewer) {
         DataMapper accountModel = new DataMapper();
         accountModel.addItems(
-                accountManager.getFolloweeListOf(user),
+                page.getAccounts(),
                 new String[] { "username", "isAdmin"}
         );
-        return putFolloweeStatus(accountModel.getModel());
+        Map<String, Object> model = new HashMap<>();
+        model.put("accounts", putFolloweeStatus(accountModel.getModel(), viewer));
+        model.put("nextCursor", page.getNextCursor());
+        return model;
     }
 
     /**
      * Returns a list of users
      *
      * @param accounts a list of accounts without followee status
+     * @param viewer the username of the user the followee status is relative to
      * @return a list of accounts with followee status added
      */
-    private List<Map<String, String>> putFolloweeStatus(List<Map<String, String>> accounts) {
+    private List<Map<String, String>> putFolloweeStatus(List<Map<String, String>> accounts, String viewer) {
         for (Map<String, String> account: accounts) {
-            if (isFollowing(managerData.getCurrentUser(), account.get("username"))) {
+            if (isFollowing(viewer, account.get("username"))) {
                 account.put("followeeStatus", "followee");
-            } else if (account.get("username").equals(managerData.getCurrentUser())) {
+            } else if (account.get("username").equals(viewer)) {
                 account.put("followeeStatus", "self");
             } else {
                 account.put("followeeStatus", "not followee");
@@ -1,13 +1,35 @@
 package controllers;
 
+import dataMapper.DataMapper;
+import entities.Comment;
+import entities.Post;
+import exception.InvalidPatternException;
 import exception.UserIsAdminException;
 import exception.UsernameNotFoundException;
 import useCases.AccountManager;
 import useCases.CommentManager;
+import useCases.LoginHistoryManager;
+import useCases.LoginThrottle;
 import useCases.ManagerData;
+import useCases.ModerationAction;
 import useCases.PostManager;
+import useCases.SessionManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class AdminController {
+    /**
+     * the largest number of accounts that a username pattern can select for moderation
+     */
+    private static final int MAX_MODERATED_ACCOUNTS = 10000;
+
+    /**
+     * an object that groups use cases together
+     */
+    private ManagerData managerData;
     /**
      * a use case responsible for managing accounts
      */
@@ -20,6 +42,18 @@ public class AdminController {
      * a use case responsible for managing comments
      */
     private CommentManager commentManager;
+    /**
+     * a use case responsible for managing login histories
+     */
+    private LoginHistoryManager loginHistoryManager;
+    /**
+     * a use case that limits how often logins can be attempted
+     */
+    private LoginThrottle loginThrottle;
+    /**
+     * a use case that keeps track of logged in users
+     */
+    private SessionManager sessionManager;
 
     /**
      * Constructor of a controller for admins
@@ -27,9 +61,13 @@ public class AdminController {
      * @param managerData an object that groups use cases together
      */
     public AdminController(ManagerData managerData) {
+        this.managerData = managerData;
         accountManager = managerData.getAccountManager();
         postManager = managerData.getPostManager();
         commentManager = managerData.getCommentManager();
+        loginHistoryManager = managerData.getLoginHistoryManager();
+        loginThrottle = managerData.getLoginThrottle();
+        sessionManager = managerData.getSessionManager();
     }
 
 
@@ -39,24 +77,29 @@ public class AdminController {
      * @param user a username
      */
     public void promote(String user) {
-        try {
-            accountManager.promoteToAdmin(user);
-        } catch (UsernameNotFoundException | UserIsAdminException e) {
-            System.out.println(e.getMessage());
-        }
+        managerData.write(() -> {
+            try {
+                accountManager.promoteToAdmin(user);
+            } catch (UsernameNotFoundException | UserIsAdminException e) {
+                System.out.println(e.getMessage());
+            }
+        });
     }
 
     /**
-     * Bans a user
+     * Bans a user and ends all of their sessions
      *
      * @param user a username
      */
     public void ban(String user) {
-        try {
-            accountManager.ban(user);
-        } catch (UsernameNotFoundException | UserIsAdminException e) {
-            System.out.println(e.getMessage());
-        }
+        managerData.write(() -> {
+            try {
+                accountManager.ban(user);
+                sessionManager.invalidateAll(List.of(user));
+            } catch (UsernameNotFoundException | UserIsAdminException e) {
+                System.out.println(e.getMessage());
+            }
+        });
     }
 
     /**
@@ -65,25 +108,148 @@ public class AdminController {
      * @param user a username
      */
     public void unban(String user) {
-        try {
-            accountManager.unban(user);
-        } catch (UsernameNotFoundException | UserIsAdminException e) {
-            System.out.println(e.getMessage());
-        }
+        managerData.write(() -> {
+            try {
+                accountManager.unban(user);
+            } catch (UsernameNotFoundException | UserIsAdminException e) {
+                System.out.println(e.getMessage());
+            }
+        });
     }
 
     /**
-     * Deletes a user
+     * Deletes a user and ends all of their sessions
      *
      * @param user a username
      */
     public void deleteUser(String user) {
+        managerData.write(() -> {
+            try {
+                accountManager.deleteUser(user);
+                sessionManager.invalidateAll(List.of(user));
+                postManager.deletePostsWrittenBy(user);
+                commentManager.deleteCommentsWrittenBy(user);
+                loginHistoryManager.deleteHistoryOf(user);
+            } catch (UsernameNotFoundException | UserIsAdminException e) {
+                System.out.println(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Applies a moderation action to a list of users and to the users matching a username pattern, then saves once
+     * for the whole batch. The posts, comments and login history of deleted users are deleted with them, and banned or
+     * deleted users are logged out.
+     *
+     * @param action one of ban, unban, promote or delete
+     * @param usernames a list of usernames
+     * @param pattern a username pattern where * matches any run of characters and ? matches any one character, or
+     *                null to moderate only the listed users
+     * @return a model of the action, the result for each user, the number of users that were and were not
+     *         moderated and a warning if the pattern matched more users than can be moderated at once, or a model
+     *         with an error if the action is unknown or the pattern cannot be used
+     */
+    public Map<String, Object> moderate(String action, List<String> usernames, String pattern) {
+        Map<String, Object> model = new LinkedHashMap<>();
+        ModerationAction moderationAction;
         try {
-            accountManager.deleteUser(user);
-            postManager.deletePostsWrittenBy(user);
-            commentManager.deleteCommentsWrittenBy(user);
-        } catch (UsernameNotFoundException | UserIsAdminException e) {
-            System.out.println(e.getMessage());
+            moderationAction = ModerationAction.valueOf(action.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            model.put("error", "Unknown moderation action: " + action);
+            return model;
+        }
+        List<String> targets = new ArrayList<>(usernames);
+        boolean truncated = false;
+        if (pattern != null && !pattern.isBlank()) {
+            List<String> matches;
+            try {
+                // one more match than can be moderated is asked for to find out whether the pattern matched too many
+                matches = accountManager.findUsernames(pattern.trim(), MAX_MODERATED_ACCOUNTS + 1);
+            } catch (InvalidPatternException e) {
+                model.put("error", e.getMessage());
+                return model;
+            }
+            truncated = matches.size() > MAX_MODERATED_ACCOUNTS;
+            targets.addAll(truncated ? matches.subList(0, MAX_MODERATED_ACCOUNTS) : matches);
+        }
+
+        List<String> moderated = new ArrayList<>();
+        Map<String, String> results = managerData.write(() -> {
+            Map<String, String> applied = accountManager.moderate(moderationAction, targets);
+            for (Map.Entry<String, String> result : applied.entrySet()) {
+                if (!result.getValue().equals("Success")) {
+                    continue;
+                }
+                moderated.add(result.getKey());
+                if (moderationAction == ModerationAction.DELETE) {
+                    postManager.deletePostsWrittenBy(result.getKey());
+                    commentManager.deleteCommentsWrittenBy(result.getKey());
+                    loginHistoryManager.deleteHistoryOf(result.getKey());
+                }
+            }
+            if (moderationAction == ModerationAction.BAN || moderationAction == ModerationAction.DELETE) {
+                sessionManager.invalidateAll(moderated);
+            }
+            if (!moderated.isEmpty()) {
+                managerData.save();
+            }
+            return applied;
+        });
+
+        model.put("action", moderationAction.name().toLowerCase());
+        model.put("succeeded", moderated.size());
+        model.put("failed", results.size() - moderated.size());
+        model.put("results", results);
+        if (truncated) {
+            model.put("warning", "The pattern matched more than " + MAX_MODERATED_ACCOUNTS
+                    + " users, so only the first " + MAX_MODERATED_ACCOUNTS + " in alphabetical order were moderated.");
+        }
+        return model;
+    }
+
+    /**
+     * Returns groups of posts with near-duplicate content
+     *
+     * @return a list of groups of similar posts, largest group first
+     */
+    public List<List<Map<String, String>>> getNearDuplicatePosts() {
+        List<List<Map<String, String>>> clusters = new ArrayList<>();
+        for (List<Post> cluster : postManager.getNearDuplicatePosts()) {
+            DataMapper postModel = new DataMapper();
+            postModel.addItems(cluster, new String[]{ "title", "author", "content", "timePosted", "id" });
+            clusters.add(postModel.getModel());
         }
+        return clusters;
+    }
+
+    /**
+     * Returns groups of comments with near-duplicate content
+     *
+     * @return a list of groups of similar comments, largest group first
+     */
+    public List<List<Map<String, String>>> getNearDuplicateComments() {
+        List<List<Map<String, String>>> clusters = new ArrayList<>();
+        for (List<Comment> cluster : commentManager.getNearDuplicateComments()) {
+            DataMapper commentModel = new DataMapper();
+            commentModel.addItems(cluster, new String[]{ "content", "author", "timePosted", "postId" });
+            clusters.add(commentModel.getModel());
+        }
+        return clusters;
+    }
+
+    /**
+     * Returns performance metrics of the use cases
+     *
+     * @return a mapping of the name of each group of metrics to its statistics
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("searchCache", accountManager.getSearchCacheStatistics());
+        metrics.put("passwordHashing", accountManager.getCredentialStatistics());
+        metrics.put("loginThrottle", loginThrottle.getStatistics());
+        metrics.put("sessions", sessionManager.getStatistics());
+        metrics.put("autocomplete", managerData.getAutocompleteLimiter().getStatistics());
+        metrics.put("writePipeline", managerData.getWritePipelineStatistics());
+        return metrics;
     }
 }
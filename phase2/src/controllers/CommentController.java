@@ -1,16 +1,31 @@
 package controllers;
 
 import dataMapper.DataMapper;
+import useCases.AccountManager;
 import useCases.CommentManager;
 import useCases.ManagerData;
+import useCases.PostManager;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class CommentController {
     /**
      * a use case responsible for managing comments
      */
     private CommentManager commentManager;
+    /**
+     * a use case responsible for managing posts
+     */
+    private PostManager postManager;
+    /**
+     * a use case responsible for managing accounts
+     */
+    private AccountManager accountManager;
+    /**
+     * an object that groups use cases together
+     */
+    private ManagerData managerData;
 
     /**
      * Constructor of a controller for comments
@@ -19,6 +34,9 @@ public class CommentController {
      */
     public CommentController(ManagerData managerData) {
         commentManager = managerData.getCommentManager();
+        postManager = managerData.getPostManager();
+        accountManager = managerData.getAccountManager();
+        this.managerData = managerData;
     }
 
     /**
@@ -29,7 +47,57 @@ public class CommentController {
      * @param author the author of the comment
      */
     public void addComment(UUID postId, String comment, String author) {
-        commentManager.addComment(postId, comment, author);
+        managerData.write(() -> commentManager.addComment(postId, comment, author));
+    }
+
+    /**
+     * Adds a batch of comments and saves them once the whole batch has been applied
+     *
+     * @param postIds the ids of the posts, one for each comment
+     * @param comments the contents of the comments
+     * @param authors the authors of the comments
+     * @return a list with the status of each comment, in the order the comments were given
+     */
+    public List<Map<String, String>> addComments(List<String> postIds, List<String> comments, List<String> authors) {
+        List<Map<String, String>> results = new ArrayList<>(postIds.size());
+        List<UUID> ids = new ArrayList<>(postIds.size());
+        for (int i = 0; i < postIds.size(); i++) {
+            Map<String, String> result = new HashMap<>();
+            result.put("index", String.valueOf(i));
+            results.add(result);
+            try {
+                UUID postId = UUID.fromString(postIds.get(i));
+                if (postManager.getPost(postId) == null) {
+                    result.put("reason", "post not found");
+                    ids.add(null);
+                } else if (!accountManager.containsUser(authors.get(i))) {
+                    result.put("reason", "author not found");
+                    ids.add(null);
+                } else {
+                    ids.add(postId);
+                }
+            } catch (IllegalArgumentException e) {
+                result.put("reason", "invalid post id");
+                ids.add(null);
+            }
+        }
+
+        List<UUID> commentIds = managerData.write(() -> {
+            List<UUID> added = commentManager.addComments(ids, comments, authors);
+            commentManager.save();
+            return added;
+        });
+        for (int i = 0; i < results.size(); i++) {
+            Map<String, String> result = results.get(i);
+            if (commentIds.get(i) != null) {
+                result.put("status", "added");
+                result.put("id", commentIds.get(i).toString());
+            } else {
+                result.put("status", "rejected");
+                result.putIfAbsent("reason", "invalid comment");
+            }
+        }
+        return results;
     }
 
     /**
@@ -46,4 +114,34 @@ public class CommentController {
         );
         return commentModel.getModel();
     }
+
+    /**
+     * Registers a listener that receives every newly added comment together with the id of its post
+     *
+     * @param listener a callback taking the id of the post and the comment
+     */
+    public void addCommentListener(BiConsumer<UUID, Map<String, String>> listener) {
+        commentManager.addObserver(comment -> {
+            DataMapper commentModel = new DataMapper();
+            listener.accept(comment.getPostId(), commentModel.getItemMap(
+                    comment,
+                    new String[]{ "content", "author", "timePosted" }
+            ));
+        });
+    }
+
+    /**
+     * Returns the comments written by a user
+     *
+     * @param author a username
+     * @return the comments written by author, sorted by the time they were posted
+     */
+    public List<Map<String, String>> getCommentsWrittenBy(String author) {
+        DataMapper commentModel = new DataMapper();
+        commentModel.addItems(
+                commentManager.getCommentsWrittenBy(author),
+                new String[]{ "content", "author", "timePosted", "postId" }
+        );
+        return commentModel.getModel();
+    }
 }
\ No newline at end of file
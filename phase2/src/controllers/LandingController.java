@@ -2,13 +2,36 @@ package controllers;
 
 import exception.*;
 import useCases.AccountManager;
+import useCases.LoginHistoryManager;
+import useCases.LoginThrottle;
 import useCases.ManagerData;
+import useCases.SessionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 public class LandingController {
     /**
      * a use case responsible for managing accounts
      */
     private AccountManager accountManager;
+    /**
+     * a use case responsible for managing login histories
+     */
+    private LoginHistoryManager loginHistoryManager;
+    /**
+     * a use case that limits how often logins can be attempted
+     */
+    private LoginThrottle loginThrottle;
+    /**
+     * a use case that keeps track of logged in users
+     */
+    private SessionManager sessionManager;
+    /**
+     * an object that groups use cases together
+     */
+    private ManagerData managerData;
 
     /**
      * Constructor of a controller for sign up and login
@@ -17,6 +40,10 @@ public class LandingController {
      */
     public LandingController(ManagerData managerData) {
         this.accountManager = managerData.getAccountManager();
+        this.loginHistoryManager = managerData.getLoginHistoryManager();
+        this.loginThrottle = managerData.getLoginThrottle();
+        this.sessionManager = managerData.getSessionManager();
+        this.managerData = managerData;
     }
 
     /**
@@ -28,7 +55,8 @@ public class LandingController {
      */
     public String login(String username, String password) {
         try {
-            accountManager.login(username, password);
+            String rehashedPassword = accountManager.login(username, password);
+            managerData.write(() -> recordLogin(username, rehashedPassword));
             return "Success";
         } catch (IncorrectPasswordException | UsernameNotFoundException | AccountBannedException e) {
             return e.getMessage();
@@ -45,9 +73,85 @@ public class LandingController {
     public String signUp(String username, String password) {
         try {
             accountManager.signUp(username, password);
+            managerData.write(() -> loginHistoryManager.recordLogin(username));
             return "Success";
         } catch (UsernameExistsException | InvalidUsernameException e) {
             return e.getMessage();
         }
     }
+
+    /**
+     * Logs in a user, hashing the password off the calling thread. Attempts beyond the rate allowed for the username
+     * or the client address are turned away before the password is hashed.
+     *
+     * @param username a username
+     * @param password a password
+     * @param clientAddress the address of the client attempting the login
+     * @return a future completed with the status of the login
+     */
+    public CompletableFuture<String> loginAsync(String username, String password, String clientAddress) {
+        if (!loginThrottle.tryAcquire(username, clientAddress)) {
+            return CompletableFuture.completedFuture("Too many login attempts. Please try again later.");
+        }
+        return accountManager.loginAsync(username, password).handle((rehashedPassword, e) -> {
+            if (e == null) {
+                loginThrottle.recordSuccess(username, clientAddress);
+                // the hashing thread does not wait for the login to be saved
+                managerData.writeLater(() -> recordLogin(username, rehashedPassword));
+                return "Success";
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IncorrectPasswordException || cause instanceof UsernameNotFoundException) {
+                loginThrottle.recordFailure(username, clientAddress);
+            }
+            return getMessage(e);
+        });
+    }
+
+    /**
+     * Signs up a user, hashing the password off the calling thread. Attempts beyond the rate allowed for the client
+     * address are turned away before the password is hashed.
+     *
+     * @param username a username
+     * @param password a password
+     * @param clientAddress the address of the client attempting the sign up
+     * @return a future completed with the status of the sign up
+     */
+    public CompletableFuture<String> signUpAsync(String username, String password, String clientAddress) {
+        if (!loginThrottle.tryAcquireSignUp(clientAddress)) {
+            return CompletableFuture.completedFuture("Too many sign up attempts. Please try again later.");
+        }
+        return accountManager.signUpAsync(username, password).handle((result, e) -> {
+            if (e == null) {
+                managerData.writeLater(() -> loginHistoryManager.recordLogin(username));
+                return "Success";
+            }
+            return getMessage(e);
+        });
+    }
+
+    /**
+     * Starts a session for a user who has logged in or signed up
+     *
+     * @param username a username
+     * @return the token of the new session, or null if too many users are logged in
+     */
+    public String startSession(String username) {
+        return sessionManager.create(username);
+    }
+
+    private void recordLogin(String username, String rehashedPassword) {
+        if (rehashedPassword != null) {
+            accountManager.rehashPassword(username, rehashedPassword);
+        }
+        loginHistoryManager.recordLogin(username);
+    }
+
+    private String getMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return "The server is busy. Please try again later.";
+        }
+        return cause.getMessage();
+    }
 }
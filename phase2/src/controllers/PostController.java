@@ -17,6 +17,10 @@ public class PostController {
      * a use case responsible for managing posts
      */
     private PostManager postManager;
+    /**
+     * an object that groups use cases together
+     */
+    private ManagerData managerData;
 
     /**
      * Constructor of a controller for posts
@@ -26,6 +30,7 @@ public class PostController {
     public PostController(ManagerData managerData) {
         accountManager = managerData.getAccountManager();
         postManager = managerData.getPostManager();
+        this.managerData = managerData;
     }
 
     /**
@@ -36,7 +41,7 @@ public class PostController {
      * @param author author of the post
      */
     public void addPost(String title, String content, String author) {
-        postManager.addPost(title, content, author);
+        managerData.write(() -> postManager.addPost(title, content, author));
     }
 
     /**
@@ -60,7 +65,7 @@ public class PostController {
      * @param postId the id of the post to be deleted
      */
     public void deletePost(UUID postId) {
-        postManager.deletePost(postId);
+        managerData.write(() -> postManager.deletePost(postId));
     }
 
     /**
@@ -85,7 +90,7 @@ public class PostController {
      */
     public List<Map<String, String>> getFollowingPosts(String username) {
         DataMapper postModel = new DataMapper();
-        HashSet<String> followees = accountManager.getFolloweesOf(username);
+        Set<String> followees = accountManager.getFolloweesOf(username);
         ArrayList<Post> postsList = new ArrayList<>();
         for (String followee : followees) { postsList.addAll(postManager.getPostsWrittenBy(followee)); }
         postModel.addItems(
@@ -0,0 +1,17 @@
+package dataGenerator;
+
+import entities.LoginHistory;
+import gateway.IWriter;
+import gateway.Writer;
+
+import java.util.HashMap;
+
+public class LoginHistoryDataGenerator {
+    public static void main(String[] args) {
+        IWriter writer1 = new Writer("data/historyData.txt");
+        IWriter writer2 = new Writer("test/testData/testHistoryData.txt");
+        HashMap<String, LoginHistory> map = new HashMap<>();
+        writer1.write(map);
+        writer2.write(map);
+    }
+}
@@ -1,9 +1,10 @@
 package dataGenerator;
 
 import entities.Account;
+import gateway.IHash;
 import gateway.IWriter;
 import gateway.Writer;
-import gateway.PasswordHash;
+import gateway.Pbkdf2PasswordHash;
 
 import java.util.HashMap;
 
@@ -11,7 +12,8 @@ public class UserDataGenerator {
     public static void main(String[] args) {
         IWriter writer1 = new Writer("data/userData.txt");
         IWriter writer2 = new Writer("test/testData/testAccountData.txt");
-        Account admin = new Account("admin", new PasswordHash().hash("password"));
+        IHash hasher = new Pbkdf2PasswordHash(Pbkdf2PasswordHash.DEFAULT_ITERATIONS);
+        Account admin = new Account("admin", hasher.hash("password"));
         admin.promoteToAdmin();
         HashMap<String, Account> map = new HashMap<>();
         map.put("admin", admin);
@@ -1,13 +1,38 @@
 package entities;
 
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 public class Account implements Serializable {
+    /**
+     * the serial version of accounts saved before it was declared, so that those accounts can still be read
+     */
+    private static final long serialVersionUID = -8254724999481287991L;
+
+    /**
+     * the fields of a saved account. followers, followees and history are only read, from accounts saved before
+     * follows were kept in a follow graph and login histories were stored apart from accounts
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("username", String.class),
+            new ObjectStreamField("hashedPassword", String.class),
+            new ObjectStreamField("isBanned", boolean.class),
+            new ObjectStreamField("isAdmin", boolean.class),
+            new ObjectStreamField("followGraph", FollowGraph.class),
+            new ObjectStreamField("followers", HashSet.class),
+            new ObjectStreamField("followees", HashSet.class),
+            new ObjectStreamField("history", List.class)
+    };
+
     /**
      * the username of the account
      */
@@ -16,26 +41,22 @@ public class Account implements Serializable {
      * the hashed password of the account
      */
     private String hashedPassword;
-    /**
-     * the login history of the account
-     */
-    private List<LocalDateTime> history = new ArrayList<>();
     /**
      * a boolean flag checking whether the account is currently banned
      */
-    private boolean isBanned;
+    private volatile boolean isBanned;
     /**
      * a boolean flag checking whether the account is an admin
      */
-    private boolean isAdmin;
+    private volatile boolean isAdmin;
     /**
-     * a set of usernames of the account's followers
+     * the graph of who follows whom, shared by every account of the same account manager
      */
-    private HashSet<String> followers = new HashSet<>();
+    private FollowGraph followGraph;
     /**
-     * a set of usernames of the account's followees
+     * the login history this account was saved with, if it was saved before login histories were stored apart
      */
-    private HashSet<String> followees = new HashSet<>();
+    private transient List<LocalDateTime> legacyHistory;
 
     public Account(String username, String hashedPassword) {
         this.username = username;
@@ -51,7 +72,7 @@ public class Account implements Serializable {
      * @param user the unique username referencing an Account object
      */
     public void follow(String user) {
-        followees.add(user);
+        getFollowGraph().follow(username, user);
     }
 
     /**
@@ -62,7 +83,7 @@ public class Account implements Serializable {
      * @param user the unique username referencing an Account object
      */
     public void unfollow(String user) {
-        followees.remove(user);
+        getFollowGraph().unfollow(username, user);
     }
 
     /**
@@ -73,7 +94,7 @@ public class Account implements Serializable {
      * @param user the unique username referencing an Account object
      */
     public void addFollower(String user) {
-        followers.add(user);
+        getFollowGraph().follow(user, username);
     }
 
     /**
@@ -84,27 +105,72 @@ public class Account implements Serializable {
      * @param user the unique username referencing an Account object
      */
     public void removeFollower(String user) {
-        followers.remove(user);
+        getFollowGraph().unfollow(user, username);
     }
 
     /**
-     * returns a HashSet of the usernames that identify users which
+     * returns a read-only Set of the usernames that identify users which
      * follow this instance's user
      *
-     * @return a HashSet of Strings of usernames
+     * @return a Set of Strings of usernames
      */
-    public HashSet<String> getFollowers() {
-        return followers;
+    public Set<String> getFollowers() {
+        return getFollowGraph().getFollowers(username);
     }
 
     /**
-     * returns a HashSet of the usernames that identify users which
+     * returns a read-only Set of the usernames that identify users which
      * are followed by this instance's user
      *
-     * @return a HashSet of Strings of usernames
+     * @return a Set of Strings of usernames
      */
-    public HashSet<String> getFollowees() {
-        return followees;
+    public Set<String> getFollowees() {
+        return getFollowGraph().getFollowees(username);
+    }
+
+    /**
+     * returns the follow graph this account's follows are stored in,
+     * creating a graph of its own if the account has none yet
+     *
+     * @return the follow graph of this account
+     */
+    public FollowGraph getFollowGraph() {
+        if (followGraph == null) {
+            followGraph = new FollowGraph();
+        }
+        return followGraph;
+    }
+
+    /**
+     * moves this account's follows into a follow graph shared with other accounts
+     *
+     * @param followGraph the follow graph to be used by this account
+     */
+    public void attachTo(FollowGraph followGraph) {
+        if (this.followGraph == followGraph) {
+            return;
+        }
+        if (this.followGraph != null) {
+            for (String followee : getFollowees()) {
+                followGraph.follow(username, followee);
+            }
+            for (String follower : getFollowers()) {
+                followGraph.follow(follower, username);
+            }
+        }
+        this.followGraph = followGraph;
+    }
+
+    /**
+     * returns the login history this account was saved with before login histories were
+     * stored apart from accounts, and forgets it so that it is only moved once
+     *
+     * @return a list of login times, oldest first, empty if the account was saved without one
+     */
+    public List<LocalDateTime> takeLegacyHistory() {
+        List<LocalDateTime> history = legacyHistory == null ? new ArrayList<>() : legacyHistory;
+        legacyHistory = null;
+        return history;
     }
 
     /**
@@ -123,6 +189,9 @@ public class Account implements Serializable {
      * @param username the new unique identifier
      */
     public void setUsername(String username) {
+        if (followGraph != null) {
+            followGraph.rename(this.username, username);
+        }
         this.username = username;
     }
 
@@ -136,20 +205,12 @@ public class Account implements Serializable {
     }
 
     /**
-     * updates the user's login history to include the current time
-     */
-    public void updateHistory() {
-        history.add(LocalDateTime.now());
-    }
-
-    /**
-     * returns the user's login history as a list with
-     * LocalDateTime objects which signify the times logged in
+     * replaces this account's hashed password
      *
-     * @return a List of LocalDateTime objects
+     * @param hashedPassword the new hashed password
      */
-    public List<LocalDateTime> getHistory() {
-        return history;
+    public void setHashedPassword(String hashedPassword) {
+        this.hashedPassword = hashedPassword;
     }
 
     /**
@@ -207,6 +268,44 @@ public class Account implements Serializable {
         return true;
     }
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("username", username);
+        fields.put("hashedPassword", hashedPassword);
+        fields.put("isBanned", isBanned);
+        fields.put("isAdmin", isAdmin);
+        fields.put("followGraph", followGraph);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        username = (String) fields.get("username", null);
+        hashedPassword = (String) fields.get("hashedPassword", null);
+        isBanned = fields.get("isBanned", false);
+        isAdmin = fields.get("isAdmin", false);
+        followGraph = (FollowGraph) fields.get("followGraph", null);
+        HashSet<String> followees = (HashSet<String>) fields.get("followees", null);
+        HashSet<String> followers = (HashSet<String>) fields.get("followers", null);
+        legacyHistory = (List<LocalDateTime>) fields.get("history", null);
+        // accounts saved before follows were kept in a follow graph have their follows in sets of their own, which
+        // are moved into a graph of this account's until the account is attached to a shared one
+        if (followGraph == null && (followees != null || followers != null)) {
+            followGraph = new FollowGraph();
+            if (followees != null) {
+                for (String followee : followees) {
+                    followGraph.follow(username, followee);
+                }
+            }
+            if (followers != null) {
+                for (String follower : followers) {
+                    followGraph.follow(follower, username);
+                }
+            }
+        }
+    }
+
     /**
      * @inheritDoc
      */
@@ -220,7 +319,6 @@ public class Account implements Serializable {
         Account account = (Account) obj;
         return username.equals(account.getUsername()) &&
                 hashedPassword.equals(account.getHashedPassword()) &&
-                history.equals(account.getHistory()) &&
                 isBanned == account.getIsBanned() &&
                 isAdmin == account.getIsAdmin();
     }
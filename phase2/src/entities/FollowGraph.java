@@ -0,0 +1,505 @@
+package entities;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class FollowGraph implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the fields written when the graph is saved, in the form graphs were saved in before reads stopped locking
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("ids", HashMap.class),
+            new ObjectStreamField("usernames", ArrayList.class),
+            new ObjectStreamField("followees", ArrayList.class),
+            new ObjectStreamField("followers", ArrayList.class),
+            new ObjectStreamField("detachments", ArrayDeque.class)
+    };
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * a mapping of username to its id. Changes to the graph are made while holding its lock, but reads take no lock:
+     * ids are looked up in this concurrent map, and the arrays indexed by id are replaced by longer copies rather
+     * than grown in place.
+     */
+    private ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    /**
+     * the number of ids given out so far. Ids are given out in increasing order and never given to another user, so
+     * an id seen in a view or a page cursor always means the same user.
+     */
+    private int size;
+    /**
+     * an array where the i-th element is the username last held by the user with id i, kept after the user is
+     * removed so that views made before the removal can still name them, or null for ids freed by graphs saved before
+     * ids stopped being reused
+     */
+    private volatile AtomicReferenceArray<String> usernames = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    /**
+     * an array where the i-th element is the ids of the users followed by the user with id i
+     */
+    private volatile AtomicReferenceArray<IdList> followees = emptyAdjacency(INITIAL_CAPACITY);
+    /**
+     * an array where the i-th element is the ids of the followers of the user with id i
+     */
+    private volatile AtomicReferenceArray<IdList> followers = emptyAdjacency(INITIAL_CAPACITY);
+    /**
+     * removed users whose follows are still to be deleted from the adjacency arrays of other users, oldest first
+     */
+    private ArrayDeque<Detachment> detachments = new ArrayDeque<>();
+
+    /**
+     * The follows of a removed user. Each follow is deleted from the adjacency list of the other user in turn.
+     */
+    private static class Detachment implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int id;
+        private final int[] followees;
+        private final int[] followers;
+        /**
+         * the number of follows deleted so far, counting followees first
+         */
+        private int detached;
+
+        private Detachment(int id, int[] followees, int[] followers) {
+            this.id = id;
+            this.followees = followees;
+            this.followers = followers;
+        }
+    }
+
+    /**
+     * A read-only view of a list of ids as a set of usernames. Adjacency lists are never modified once they are in
+     * the graph and ids are never given to another user, so the view keeps showing the graph as it was when the view
+     * was created, apart from users who have since been renamed.
+     */
+    private class UsernameSet extends AbstractSet<String> {
+        private IdList adjacency;
+
+        private UsernameSet(IdList adjacency) {
+            this.adjacency = adjacency;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = lookup(o);
+            return id != null && adjacency.contains(id);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            PrimitiveIterator.OfInt ids = adjacency.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return ids.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return usernames.get(ids.nextInt());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return adjacency.size();
+        }
+    }
+
+    /**
+     * Makes one user follow another, adding either user to the graph if they are not in it yet.
+     *
+     * @param follower the username of the follower
+     * @param followee the username of the followee
+     * @return whether the follower did not already follow the followee
+     */
+    public synchronized boolean follow(String follower, String followee) {
+        int followerId = idOf(follower);
+        int followeeId = idOf(followee);
+        IdList adjacency = followees.get(followerId);
+        if (adjacency.contains(followeeId)) {
+            return false;
+        }
+        followees.set(followerId, adjacency.with(followeeId));
+        followers.set(followeeId, followers.get(followeeId).with(followerId));
+        return true;
+    }
+
+    /**
+     * Makes one user stop following another.
+     *
+     * @param follower the username of the follower
+     * @param followee the username of the followee
+     * @return whether the follower followed the followee
+     */
+    public synchronized boolean unfollow(String follower, String followee) {
+        Integer followerId = lookup(follower);
+        Integer followeeId = lookup(followee);
+        if (followerId == null || followeeId == null) {
+            return false;
+        }
+        IdList adjacency = followees.get(followerId);
+        if (!adjacency.contains(followeeId)) {
+            return false;
+        }
+        followees.set(followerId, adjacency.without(followeeId));
+        followers.set(followeeId, followers.get(followeeId).without(followerId));
+        return true;
+    }
+
+    /**
+     * Returns whether one user follows another
+     *
+     * @param follower the username of the follower
+     * @param followee the username of the followee
+     * @return whether follower follows followee
+     */
+    public boolean isFollowing(String follower, String followee) {
+        Integer followerId = lookup(follower);
+        Integer followeeId = lookup(followee);
+        if (followerId == null || followeeId == null) {
+            return false;
+        }
+        // search the shorter of the two lists
+        IdList outgoing = followees.get(followerId);
+        IdList incoming = followers.get(followeeId);
+        return outgoing.size() <= incoming.size() ? outgoing.contains(followeeId) : incoming.contains(followerId);
+    }
+
+    /**
+     * Returns the followers of a user as a read-only set that does not change when the graph does
+     *
+     * @param username a username
+     * @return the usernames of the followers of the user, in order of id
+     */
+    public Set<String> getFollowers(String username) {
+        Integer id = lookup(username);
+        return new UsernameSet(id == null ? IdList.EMPTY : followers.get(id));
+    }
+
+    /**
+     * Returns the users followed by a user as a read-only set that does not change when the graph does
+     *
+     * @param username a username
+     * @return the usernames of the users followed by the user, in order of id
+     */
+    public Set<String> getFollowees(String username) {
+        Integer id = lookup(username);
+        return new UsernameSet(id == null ? IdList.EMPTY : followees.get(id));
+    }
+
+    /**
+     * Returns the number of followers of a user without building a set of them
+     *
+     * @param username a username
+     * @return the number of followers of the user
+     */
+    public int countFollowers(String username) {
+        Integer id = lookup(username);
+        return id == null ? 0 : followers.get(id).size();
+    }
+
+    /**
+     * Returns the number of users followed by a user without building a set of them
+     *
+     * @param username a username
+     * @return the number of users followed by the user
+     */
+    public int countFollowees(String username) {
+        Integer id = lookup(username);
+        return id == null ? 0 : followees.get(id).size();
+    }
+
+    /**
+     * Returns the id of a user
+     *
+     * @param username a username
+     * @return the id of the user, or -1 if the user is not in the graph
+     */
+    public int getId(String username) {
+        Integer id = lookup(username);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the username of the user with an id
+     *
+     * @param id the id of a user
+     * @return the username of the user, or null if the user has been removed from the graph
+     */
+    public String getUsername(int id) {
+        String username = usernames.get(id);
+        Integer current = lookup(username);
+        return current != null && current == id ? username : null;
+    }
+
+    /**
+     * Returns the ids of the users followed by a user. The list is replaced rather than changed when the user
+     * follows or unfollows someone.
+     *
+     * @param id the id of a user
+     * @return the ids of the users followed by the user
+     */
+    public IdList getFolloweeIds(int id) {
+        return followees.get(id);
+    }
+
+    /**
+     * Returns the ids of the followers of a user. The list is replaced rather than changed when someone follows or
+     * unfollows the user.
+     *
+     * @param id the id of a user
+     * @return the ids of the followers of the user
+     */
+    public IdList getFollowerIds(int id) {
+        return followers.get(id);
+    }
+
+    /**
+     * Counts the ids found in both of two lists of ids and collects the usernames of the first few of them. Lists of
+     * similar length are merged in one linear pass; when one list is much shorter, each of its ids is looked up in
+     * the longer one with a binary search.
+     *
+     * @param ids1 a list of ids
+     * @param ids2 a list of ids
+     * @param sample a list that the usernames of the first sampleSize common ids are added to, in order of id
+     * @param sampleSize the maximum number of usernames to be added to sample
+     * @return the number of ids found in both lists
+     */
+    public int intersect(IdList ids1, IdList ids2, List<String> sample, int sampleSize) {
+        if (ids1.size() > ids2.size()) {
+            IdList temp = ids1;
+            ids1 = ids2;
+            ids2 = temp;
+        }
+        int count = 0;
+        PrimitiveIterator.OfInt iterator1 = ids1.iterator();
+        if ((long) ids1.size() * (32 - Integer.numberOfLeadingZeros(ids2.size())) < ids1.size() + ids2.size()) {
+            while (iterator1.hasNext()) {
+                int id = iterator1.nextInt();
+                if (ids2.contains(id) && count++ < sampleSize) {
+                    sample.add(usernames.get(id));
+                }
+            }
+            return count;
+        }
+        PrimitiveIterator.OfInt iterator2 = ids2.iterator();
+        if (!iterator1.hasNext() || !iterator2.hasNext()) {
+            return 0;
+        }
+        int id1 = iterator1.nextInt();
+        int id2 = iterator2.nextInt();
+        while (true) {
+            if (id1 < id2) {
+                if (!iterator1.hasNext()) {
+                    return count;
+                }
+                id1 = iterator1.nextInt();
+            } else if (id1 > id2) {
+                if (!iterator2.hasNext()) {
+                    return count;
+                }
+                id2 = iterator2.nextInt();
+            } else {
+                if (count++ < sampleSize) {
+                    sample.add(usernames.get(id1));
+                }
+                if (!iterator1.hasNext() || !iterator2.hasNext()) {
+                    return count;
+                }
+                id1 = iterator1.nextInt();
+                id2 = iterator2.nextInt();
+            }
+        }
+    }
+
+    /**
+     * Removes a user and every follow to or from them from the graph.
+     *
+     * @param username a username
+     */
+    public void remove(String username) {
+        remove(username, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes a user from the graph at once and deletes at most maxEdges of the follows to or from them. The user
+     * has no followers or followees from then on, but other users keep them in their followers or followees until
+     * the rest of the follows are deleted with detach.
+     *
+     * @param username a username
+     * @param maxEdges the largest number of follows to be deleted before returning
+     * @return whether every follow of every removed user has been deleted
+     */
+    public synchronized boolean remove(String username, int maxEdges) {
+        Integer id = ids.remove(username);
+        if (id != null) {
+            detachments.add(new Detachment(id, followees.get(id).toArray(), followers.get(id).toArray()));
+            followees.set(id, IdList.EMPTY);
+            followers.set(id, IdList.EMPTY);
+        }
+        return detach(maxEdges);
+    }
+
+    /**
+     * Deletes at most maxEdges of the follows of removed users from the adjacency lists of the users they followed
+     * or were followed by, in the order the users were removed. The lock on the graph is held only while this batch
+     * is deleted, so other changes to the graph can be made between batches.
+     *
+     * @param maxEdges the largest number of follows to be deleted before returning
+     * @return whether every follow of every removed user has been deleted
+     */
+    public synchronized boolean detach(int maxEdges) {
+        int remaining = maxEdges;
+        while (!detachments.isEmpty() && remaining > 0) {
+            Detachment detachment = detachments.peek();
+            int id = detachment.id;
+            while (detachment.detached < detachment.followees.length && remaining > 0) {
+                int followee = detachment.followees[detachment.detached++];
+                followers.set(followee, followers.get(followee).without(id));
+                remaining--;
+            }
+            int total = detachment.followees.length + detachment.followers.length;
+            while (detachment.detached < total && remaining > 0) {
+                int follower = detachment.followers[detachment.detached++ - detachment.followees.length];
+                followees.set(follower, followees.get(follower).without(id));
+                remaining--;
+            }
+            if (detachment.detached == total) {
+                detachments.poll();
+            }
+        }
+        return detachments.isEmpty();
+    }
+
+    /**
+     * Returns whether some follows of removed users are still to be deleted
+     *
+     * @return whether some follows of removed users are still to be deleted
+     */
+    public synchronized boolean isDetaching() {
+        return !detachments.isEmpty();
+    }
+
+    /**
+     * Changes the username of a user, keeping their follows.
+     *
+     * @param oldUsername the current username of the user
+     * @param newUsername the new username of the user
+     */
+    public synchronized void rename(String oldUsername, String newUsername) {
+        Integer id = ids.remove(oldUsername);
+        if (id != null) {
+            ids.put(newUsername, id);
+            usernames.set(id, newUsername);
+        }
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        ArrayList<String> usernameList = new ArrayList<>(size);
+        ArrayList<int[]> followeeList = new ArrayList<>(size);
+        ArrayList<int[]> followerList = new ArrayList<>(size);
+        for (int id = 0; id < size; id++) {
+            usernameList.add(usernames.get(id));
+            followeeList.add(followees.get(id).toArray());
+            followerList.add(followers.get(id).toArray());
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("ids", new HashMap<>(ids));
+        fields.put("usernames", usernameList);
+        fields.put("followees", followeeList);
+        fields.put("followers", followerList);
+        fields.put("detachments", detachments);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        ids = new ConcurrentHashMap<>((HashMap<String, Integer>) fields.get("ids", null));
+        ArrayList<String> usernameList = (ArrayList<String>) fields.get("usernames", null);
+        ArrayList<int[]> followeeList = (ArrayList<int[]>) fields.get("followees", null);
+        ArrayList<int[]> followerList = (ArrayList<int[]>) fields.get("followers", null);
+        size = usernameList.size();
+        int capacity = Math.max(INITIAL_CAPACITY, size);
+        usernames = new AtomicReferenceArray<>(capacity);
+        followees = emptyAdjacency(capacity);
+        followers = emptyAdjacency(capacity);
+        for (int id = 0; id < size; id++) {
+            usernames.set(id, usernameList.get(id));
+            followees.set(id, IdList.of(followeeList.get(id)));
+            followers.set(id, IdList.of(followerList.get(id)));
+        }
+        detachments = (ArrayDeque<Detachment>) fields.get("detachments", null);
+        // graphs saved before removals could be deferred have no detachments
+        if (detachments == null) {
+            detachments = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Returns the id of a username, or null if it is not in the graph. Unlike a HashMap, the map of ids cannot look
+     * up null.
+     */
+    private Integer lookup(Object username) {
+        return username == null ? null : ids.get(username);
+    }
+
+    private int idOf(String username) {
+        Integer id = ids.get(username);
+        if (id != null) {
+            return id;
+        }
+        if (size == usernames.length()) {
+            grow();
+        }
+        id = size++;
+        usernames.set(id, username);
+        ids.put(username, id);
+        return id;
+    }
+
+    /**
+     * Replaces the arrays indexed by id with copies twice as long. An id is only put in the map of ids once the arrays
+     * are long enough for it, so a reader that found an id never indexes an array that is too short.
+     */
+    private void grow() {
+        int capacity = usernames.length() * 2;
+        AtomicReferenceArray<String> newUsernames = new AtomicReferenceArray<>(capacity);
+        AtomicReferenceArray<IdList> newFollowees = emptyAdjacency(capacity);
+        AtomicReferenceArray<IdList> newFollowers = emptyAdjacency(capacity);
+        for (int id = 0; id < size; id++) {
+            newUsernames.set(id, usernames.get(id));
+            newFollowees.set(id, followees.get(id));
+            newFollowers.set(id, followers.get(id));
+        }
+        usernames = newUsernames;
+        followees = newFollowees;
+        followers = newFollowers;
+    }
+
+    private static AtomicReferenceArray<IdList> emptyAdjacency(int capacity) {
+        AtomicReferenceArray<IdList> adjacency = new AtomicReferenceArray<>(capacity);
+        for (int id = 0; id < capacity; id++) {
+            adjacency.set(id, IdList.EMPTY);
+        }
+        return adjacency;
+    }
+}
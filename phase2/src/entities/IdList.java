@@ -0,0 +1,255 @@
+package entities;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class IdList {
+    /**
+     * the largest number of ids in a chunk. A chunk that grows past it is split in two.
+     */
+    private static final int MAX_CHUNK_SIZE = 64;
+
+    /**
+     * a list without ids
+     */
+    public static final IdList EMPTY = new IdList(new int[0][], new int[0], 0);
+
+    /**
+     * the ids in sorted, non-empty chunks, where every id in a chunk is smaller than every id in the next. Chunks are
+     * never modified once they are in a list, so a list made by adding or deleting an id shares every chunk with this
+     * one except the chunk that changed.
+     */
+    private final int[][] chunks;
+    /**
+     * an array where the i-th element is the index in the list of the first id in the i-th chunk
+     */
+    private final int[] starts;
+    private final int size;
+
+    private IdList(int[][] chunks, int[] starts, int size) {
+        this.chunks = chunks;
+        this.starts = starts;
+        this.size = size;
+    }
+
+    /**
+     * Returns a list of sorted ids
+     *
+     * @param ids an array of ids sorted in increasing order without duplicates
+     * @return a list of the ids
+     */
+    public static IdList of(int[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        int chunkCount = (ids.length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+        int[][] chunks = new int[chunkCount][];
+        int[] starts = new int[chunkCount];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            starts[chunk] = chunk * MAX_CHUNK_SIZE;
+            chunks[chunk] = Arrays.copyOfRange(ids, starts[chunk], Math.min(ids.length, starts[chunk] + MAX_CHUNK_SIZE));
+        }
+        return new IdList(chunks, starts, ids.length);
+    }
+
+    /**
+     * Returns the number of ids in the list
+     *
+     * @return the number of ids in the list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id at a position in the list
+     *
+     * @param index a position in the list, from 0 to size - 1
+     * @return the id at the position
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        int chunk = Arrays.binarySearch(starts, index);
+        if (chunk < 0) {
+            chunk = -chunk - 2;
+        }
+        return chunks[chunk][index - starts[chunk]];
+    }
+
+    /**
+     * Searches the list for an id, in the same way as Arrays.binarySearch
+     *
+     * @param id an id
+     * @return the position of the id, or (-(insertion point) - 1) if the list does not contain it
+     */
+    public int indexOf(int id) {
+        if (size == 0) {
+            return -1;
+        }
+        int chunk = chunkOf(id);
+        int position = Arrays.binarySearch(chunks[chunk], id);
+        return position >= 0 ? starts[chunk] + position : position - starts[chunk];
+    }
+
+    /**
+     * Returns whether the list contains an id
+     *
+     * @param id an id
+     * @return whether the list contains the id
+     */
+    public boolean contains(int id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Returns a list with an id added. Only the chunk the id goes in and the arrays indexing the chunks are copied.
+     *
+     * @param id an id
+     * @return a list with the id added, or this list if it already contains the id
+     */
+    public IdList with(int id) {
+        if (size == 0) {
+            return new IdList(new int[][]{{id}}, new int[]{0}, 1);
+        }
+        int chunk = chunkOf(id);
+        int[] ids = chunks[chunk];
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return this;
+        }
+        position = -position - 1;
+        int[] grown = new int[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, position);
+        grown[position] = id;
+        System.arraycopy(ids, position, grown, position + 1, ids.length - position);
+        if (grown.length <= MAX_CHUNK_SIZE) {
+            int[][] newChunks = chunks.clone();
+            newChunks[chunk] = grown;
+            int[] newStarts = starts.clone();
+            for (int i = chunk + 1; i < newStarts.length; i++) {
+                newStarts[i]++;
+            }
+            return new IdList(newChunks, newStarts, size + 1);
+        }
+        // ids are mostly added at the end, so a full last chunk is kept full rather than split in half
+        int split = chunk == chunks.length - 1 && position == ids.length ? ids.length : grown.length / 2;
+        int[][] newChunks = new int[chunks.length + 1][];
+        int[] newStarts = new int[chunks.length + 1];
+        System.arraycopy(chunks, 0, newChunks, 0, chunk);
+        System.arraycopy(starts, 0, newStarts, 0, chunk + 1);
+        newChunks[chunk] = Arrays.copyOfRange(grown, 0, split);
+        newChunks[chunk + 1] = Arrays.copyOfRange(grown, split, grown.length);
+        newStarts[chunk + 1] = starts[chunk] + split;
+        for (int i = chunk + 1; i < chunks.length; i++) {
+            newChunks[i + 1] = chunks[i];
+            newStarts[i + 1] = starts[i] + 1;
+        }
+        return new IdList(newChunks, newStarts, size + 1);
+    }
+
+    /**
+     * Returns a list with an id deleted. Only the chunk the id is in and the arrays indexing the chunks are copied.
+     *
+     * @param id an id
+     * @return a list with the id deleted, or this list if it does not contain the id
+     */
+    public IdList without(int id) {
+        if (size == 0) {
+            return this;
+        }
+        int chunk = chunkOf(id);
+        int[] ids = chunks[chunk];
+        int position = Arrays.binarySearch(ids, id);
+        if (position < 0) {
+            return this;
+        }
+        if (size == 1) {
+            return EMPTY;
+        }
+        if (ids.length > 1) {
+            int[] shrunk = new int[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, position);
+            System.arraycopy(ids, position + 1, shrunk, position, ids.length - position - 1);
+            int[][] newChunks = chunks.clone();
+            newChunks[chunk] = shrunk;
+            int[] newStarts = starts.clone();
+            for (int i = chunk + 1; i < newStarts.length; i++) {
+                newStarts[i]--;
+            }
+            return new IdList(newChunks, newStarts, size - 1);
+        }
+        // the chunk only held this id, so it is dropped
+        int[][] newChunks = new int[chunks.length - 1][];
+        int[] newStarts = new int[chunks.length - 1];
+        System.arraycopy(chunks, 0, newChunks, 0, chunk);
+        System.arraycopy(starts, 0, newStarts, 0, chunk);
+        for (int i = chunk + 1; i < chunks.length; i++) {
+            newChunks[i - 1] = chunks[i];
+            newStarts[i - 1] = starts[i] - 1;
+        }
+        return new IdList(newChunks, newStarts, size - 1);
+    }
+
+    /**
+     * Returns an iterator over the ids in increasing order
+     *
+     * @return an iterator over the ids in increasing order
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return chunk < chunks.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int id = chunks[chunk][position++];
+                if (position == chunks[chunk].length) {
+                    chunk++;
+                    position = 0;
+                }
+                return id;
+            }
+        };
+    }
+
+    /**
+     * Returns the ids as a new array
+     *
+     * @return a sorted array of the ids
+     */
+    public int[] toArray() {
+        int[] ids = new int[size];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            System.arraycopy(chunks[chunk], 0, ids, starts[chunk], chunks[chunk].length);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the last chunk whose first id is at most id, or the first chunk if there is none
+     */
+    private int chunkOf(int id) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunks[middle][0] <= id) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,122 @@
+package entities;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public class LoginHistory implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * the number of most recent logins whose exact times are kept
+     */
+    public static final int MAX_RECENT_LOGINS = 100;
+    /**
+     * the number of days before the latest login whose login counts are kept for logins that are no longer recent
+     */
+    public static final int MAX_DAYS = 365;
+
+    /**
+     * a ring buffer of the times of the most recent logins
+     */
+    private LocalDateTime[] recentLogins = new LocalDateTime[MAX_RECENT_LOGINS];
+    /**
+     * the index in recentLogins of the oldest recent login
+     */
+    private int start;
+    /**
+     * the number of recent logins in recentLogins
+     */
+    private int size;
+    /**
+     * a mapping of a day within MAX_DAYS of the latest login to the number of logins on that day that are no
+     * longer recent
+     */
+    private TreeMap<LocalDate, Integer> dailyCounts = new TreeMap<>();
+    /**
+     * the number of logins older than both the recent logins and MAX_DAYS before the latest login
+     */
+    private long olderLogins;
+
+    /**
+     * records a login at a given time, rolling the oldest recent login up into
+     * the count of its day if the buffer of recent logins is full
+     *
+     * @param time the time of the login
+     */
+    public synchronized void record(LocalDateTime time) {
+        if (size == MAX_RECENT_LOGINS) {
+            LocalDateTime oldest = recentLogins[start];
+            recentLogins[start] = time;
+            start = (start + 1) % MAX_RECENT_LOGINS;
+            dailyCounts.merge(oldest.toLocalDate(), 1, Integer::sum);
+            // days are dropped by date, so a user who logs in on few days keeps no more than a user who logs in daily
+            LocalDate cutoff = time.toLocalDate().minusDays(MAX_DAYS);
+            NavigableMap<LocalDate, Integer> expired = dailyCounts.headMap(cutoff, false);
+            for (int dailyCount : expired.values()) {
+                olderLogins += dailyCount;
+            }
+            expired.clear();
+        } else {
+            recentLogins[(start + size) % MAX_RECENT_LOGINS] = time;
+            size++;
+        }
+    }
+
+    /**
+     * returns the times of recent logins, most recent first
+     *
+     * @param offset the number of most recent logins to be skipped
+     * @param limit the maximum number of times to be returned
+     * @return a list of at most limit login times
+     */
+    public synchronized List<LocalDateTime> getRecentLogins(int offset, int limit) {
+        List<LocalDateTime> logins = new ArrayList<>();
+        for (int i = Math.max(offset, 0); i < size && logins.size() < limit; i++) {
+            logins.add(recentLogins[(start + size - 1 - i) % MAX_RECENT_LOGINS]);
+        }
+        return logins;
+    }
+
+    /**
+     * returns the number of recent logins whose exact times are kept
+     *
+     * @return the number of recent logins
+     */
+    public synchronized int countRecentLogins() {
+        return size;
+    }
+
+    /**
+     * returns a copy of the number of logins on each day for logins that are
+     * no longer recent, most recent day first
+     *
+     * @return a mapping of a day to the number of logins on that day
+     */
+    public synchronized NavigableMap<LocalDate, Integer> getDailyCounts() {
+        return new TreeMap<>(dailyCounts.descendingMap());
+    }
+
+    /**
+     * returns the number of logins ever recorded
+     *
+     * @return the number of logins ever recorded
+     */
+    public synchronized long countLogins() {
+        long count = size + olderLogins;
+        for (int dailyCount : dailyCounts.values()) {
+            count += dailyCount;
+        }
+        return count;
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+    }
+}
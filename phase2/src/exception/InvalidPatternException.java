@@ -0,0 +1,14 @@
+package exception;
+
+public class InvalidPatternException extends Exception{
+    /**
+     * Exception thrown when a username pattern cannot be used
+     * since it would select too many usernames to check,
+     * such as a pattern starting with a wildcard
+     *
+     * @param errorMessage Description of why error was thrown
+     */
+    public InvalidPatternException(String errorMessage) {
+        super(errorMessage);
+    }
+}
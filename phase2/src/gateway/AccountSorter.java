@@ -2,39 +2,90 @@ package gateway;
 
 import entities.Account;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
 
 public class AccountSorter implements IAccountSorter {
     private StringMatcher stringMatcher= new StringMatcher();
 
-    private class AccountComparator implements Comparator<Account> {
-        private String targetUsername;
-        public AccountComparator(String targetUsername) {
-            this.targetUsername = targetUsername;
-        }
+    static class ScoredAccount {
+        Account account;
+        int distance;
+        /**
+         * the position of the account in the list being sorted, used to keep ties in their original order
+         */
+        int position;
 
-        @Override
-        public int compare(Account a1, Account a2) {
-            String username1 = a1.getUsername();
-            String username2 = a2.getUsername();
-            int editDistance1 = stringMatcher.editDistance(username1, targetUsername);
-            int editDistance2 = stringMatcher.editDistance(username2, targetUsername);
-            if (editDistance1 == editDistance2) {
-                return 0;
-            } else if (editDistance1 < editDistance2) {
-                return -1;
-            }
-            return 1;
+        ScoredAccount(Account account, int distance, int position) {
+            this.account = account;
+            this.distance = distance;
+            this.position = position;
         }
     }
 
+    static final Comparator<ScoredAccount> CLOSEST_FIRST = Comparator
+            .comparingInt((ScoredAccount scored) -> scored.distance)
+            .thenComparingInt(scored -> scored.position);
+
     /**
+     * Sorts accounts by the edit distance of their username to the target username, computing each distance once.
+     * When limit is smaller than the number of accounts, only the limit closest accounts are kept: they are selected
+     * with a max-heap of size limit, and a distance stops being computed as soon as it cannot beat the worst account
+     * in the heap.
+     *
      * @inheritDoc
      */
     @Override
     public void sort(List<Account> accounts, String targetUsername, int limit) {
-        Collections.sort(accounts, new AccountComparator(targetUsername));
+        List<ScoredAccount> closest = closest(accounts, 0, accounts.size(), targetUsername, limit);
+        accounts.clear();
+        for (ScoredAccount scored : closest) {
+            accounts.add(scored.account);
+        }
+    }
+
+    /**
+     * Returns the accounts in a range of a list that are closest to the target username, closest first.
+     *
+     * @param accounts a list of accounts
+     * @param from the index of the first account of the range
+     * @param to the index after the last account of the range
+     * @param targetUsername the username of the search query
+     * @param limit the number of accounts to be kept, or a non-positive number to keep every account
+     * @return the closest accounts of the range with their distances
+     */
+    List<ScoredAccount> closest(List<Account> accounts, int from, int to, String targetUsername, int limit) {
+        List<ScoredAccount> closest = new ArrayList<>(to - from);
+        if (limit <= 0 || limit >= to - from) {
+            for (int i = from; i < to; i++) {
+                Account account = accounts.get(i);
+                closest.add(new ScoredAccount(account,
+                        stringMatcher.editDistance(account.getUsername(), targetUsername), i));
+            }
+        } else {
+            PriorityQueue<ScoredAccount> heap = new PriorityQueue<>(limit, CLOSEST_FIRST.reversed());
+            for (int i = from; i < to; i++) {
+                Account account = accounts.get(i);
+                if (heap.size() < limit) {
+                    heap.add(new ScoredAccount(account,
+                            stringMatcher.editDistance(account.getUsername(), targetUsername), i));
+                    continue;
+                }
+                int maxDistance = heap.peek().distance - 1;
+                if (maxDistance < 0) {
+                    break;
+                }
+                int distance = stringMatcher.editDistance(account.getUsername(), targetUsername, maxDistance);
+                if (distance <= maxDistance) {
+                    heap.poll();
+                    heap.add(new ScoredAccount(account, distance, i));
+                }
+            }
+            closest.addAll(heap);
+        }
+        closest.sort(CLOSEST_FIRST);
+        return closest;
     }
 }
@@ -0,0 +1,169 @@
+package gateway;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class BKTree implements IUsernameIndex {
+    private StringMatcher stringMatcher = new StringMatcher();
+
+    private static class Node {
+        private String username;
+        private boolean isDeleted;
+        /**
+         * a mapping of edit distance to the child whose username is that far from this node's username
+         */
+        private Map<Integer, Node> children = new HashMap<>();
+
+        private Node(String username) {
+            this.username = username;
+        }
+    }
+
+    private static class Match {
+        private Node node;
+        private int distance;
+
+        private Match(Node node, int distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    private Node root;
+    /**
+     * the number of usernames in the tree that have not been removed
+     */
+    private int size;
+    /**
+     * the number of nodes of removed usernames that are still kept in the tree
+     */
+    private int deletedNodes;
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void add(String username) {
+        if (root == null) {
+            root = new Node(username);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = stringMatcher.editDistance(username, node.username);
+            if (distance == 0) {
+                if (node.isDeleted) {
+                    node.isDeleted = false;
+                    deletedNodes--;
+                    size++;
+                }
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(username));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Marks a username as removed. The tree is rebuilt from the remaining usernames once removed nodes outnumber
+     * them, since nodes cannot be unlinked without detaching their subtrees.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void remove(String username) {
+        Node node = root;
+        while (node != null) {
+            int distance = stringMatcher.editDistance(username, node.username);
+            if (distance == 0) {
+                if (!node.isDeleted) {
+                    node.isDeleted = true;
+                    deletedNodes++;
+                    size--;
+                }
+                break;
+            }
+            node = node.children.get(distance);
+        }
+        if (deletedNodes > size) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the limit closest usernames to the search query, closest first. Subtrees are visited in order of the
+     * lowest distance they could contain and skipped once they cannot beat the limit-th best match found so far.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public synchronized List<String> search(String targetUsername, int limit) {
+        List<String> usernames = new ArrayList<>();
+        if (root == null || limit <= 0) {
+            return usernames;
+        }
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingInt((Match match) -> -match.distance));
+        PriorityQueue<Match> frontier = new PriorityQueue<>(Comparator.comparingInt((Match match) -> match.distance));
+        frontier.add(new Match(root, 0));
+        while (!frontier.isEmpty()) {
+            Match next = frontier.poll();
+            if (best.size() == limit && next.distance >= best.peek().distance) {
+                break;
+            }
+            Node node = next.node;
+            int distance = stringMatcher.editDistance(node.username, targetUsername);
+            if (!node.isDeleted) {
+                if (best.size() < limit) {
+                    best.add(new Match(node, distance));
+                } else if (distance < best.peek().distance) {
+                    best.poll();
+                    best.add(new Match(node, distance));
+                }
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                // by the triangle inequality, every username in the child's subtree is at least this far away
+                int lowerBound = Math.abs(child.getKey() - distance);
+                if (best.size() < limit || lowerBound < best.peek().distance) {
+                    frontier.add(new Match(child.getValue(), lowerBound));
+                }
+            }
+        }
+        while (!best.isEmpty()) {
+            usernames.add(best.poll().node.username);
+        }
+        Collections.reverse(usernames);
+        return usernames;
+    }
+
+    private void rebuild() {
+        List<String> usernames = new ArrayList<>();
+        if (root != null) {
+            List<Node> stack = new ArrayList<>();
+            stack.add(root);
+            while (!stack.isEmpty()) {
+                Node node = stack.remove(stack.size() - 1);
+                if (!node.isDeleted) {
+                    usernames.add(node.username);
+                }
+                stack.addAll(node.children.values());
+            }
+        }
+        root = null;
+        size = 0;
+        deletedNodes = 0;
+        for (String username : usernames) {
+            add(username);
+        }
+    }
+}
@@ -6,9 +6,9 @@ import java.util.List;
 
 public interface IAccountSorter {
     /**
-     * Sort the given ArrayList of comments by mutation
+     * Sort the given list of accounts by mutation, keeping only the top limit accounts if limit is positive
      *
-     * @param accounts list of comments to be sorted
+     * @param accounts list of accounts to be sorted
      * @param targetUsername the username of the search query
      * @param limit the number of top related accounts to be returned
      */
@@ -0,0 +1,29 @@
+package gateway;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public interface INearDuplicateIndex {
+    /**
+     * Adds a text to the index.
+     *
+     * @param id   the id of the object the text belongs to
+     * @param text the text to be indexed
+     */
+    void add(UUID id, String text);
+
+    /**
+     * Removes a text from the index.
+     *
+     * @param id the id of the object the text belongs to
+     */
+    void remove(UUID id);
+
+    /**
+     * Returns groups of ids whose texts are near-duplicates of each other.
+     *
+     * @return a list of groups with at least 2 ids each, largest group first
+     */
+    List<Set<UUID>> getClusters();
+}
@@ -0,0 +1,21 @@
+package gateway;
+
+public interface IPasswordHasher extends IHash {
+    /**
+     * Returns whether a password matches a stored hash
+     *
+     * @param password   a password
+     * @param storedHash a hash returned by hash, or by an older hasher that this hasher still understands
+     * @return           whether the password hashes to storedHash
+     */
+    boolean verify(String password, String storedHash);
+
+    /**
+     * Returns whether a stored hash was made with weaker settings than this hasher uses, so that the password
+     * should be hashed again the next time it is known
+     *
+     * @param storedHash a stored hash
+     * @return           whether storedHash should be replaced
+     */
+    boolean needsRehash(String storedHash);
+}
@@ -0,0 +1,29 @@
+package gateway;
+
+import java.util.List;
+
+public interface IUsernameIndex {
+    /**
+     * Adds a username to the index.
+     *
+     * @param username a username
+     */
+    void add(String username);
+
+    /**
+     * Removes a username from the index.
+     *
+     * @param username a username
+     */
+    void remove(String username);
+
+    /**
+     * Returns candidate usernames for a search query, from which the closest matches are chosen by exact scoring.
+     *
+     * @param targetUsername the username of the search query
+     * @param limit the number of top related usernames that will be returned by the search
+     * @return a list of usernames that may be among the closest matches to targetUsername, or null if the query is
+     * too common for the index to narrow the usernames down
+     */
+    List<String> search(String targetUsername, int limit);
+}
\ No newline at end of file
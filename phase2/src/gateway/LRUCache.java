@@ -0,0 +1,122 @@
+package gateway;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public class LRUCache<K, V> {
+    /**
+     * the entries of the cache, ordered from least to most recently used
+     */
+    private LinkedHashMap<K, V> entries;
+    /**
+     * the number of lookups that found an entry
+     */
+    private long hits;
+    /**
+     * the number of lookups that did not find an entry
+     */
+    private long misses;
+
+    /**
+     * Constructor of a cache that evicts the least recently used entry once it holds more than capacity entries.
+     *
+     * @param capacity the maximum number of entries kept in the cache
+     */
+    public LRUCache(int capacity) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the value stored for a key and marks it as the most recently used.
+     *
+     * @param key a key
+     * @return the value stored for key, or null if there is none
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value for a key, evicting the least recently used entry if the cache is full.
+     *
+     * @param key a key
+     * @param value the value to be stored for key
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Removes the entry for a key, if there is one.
+     *
+     * @param key a key
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Performs an action on every entry of the cache, without counting as a lookup or changing the order of use.
+     *
+     * @param action the action to be performed on each key and value
+     */
+    public synchronized void forEach(BiConsumer<? super K, ? super V> action) {
+        entries.forEach(action);
+    }
+
+    /**
+     * Removes every entry from the cache. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries in the cache
+     *
+     * @return the number of entries in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that found an entry
+     *
+     * @return the number of lookups that found an entry
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that did not find an entry
+     *
+     * @return the number of lookups that did not find an entry
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the share of lookups that found an entry
+     *
+     * @return the number of hits divided by the number of lookups, or 0 if there have been no lookups
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
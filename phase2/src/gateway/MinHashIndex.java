@@ -0,0 +1,217 @@
+package gateway;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+public class MinHashIndex implements INearDuplicateIndex {
+    /**
+     * the number of characters in each shingle
+     */
+    private static final int SHINGLE_LENGTH = 5;
+    /**
+     * the number of bands the signature is split into for locality-sensitive hashing
+     */
+    private static final int BANDS = 16;
+    /**
+     * the number of signature values in each band
+     */
+    private static final int ROWS = 4;
+    private static final int SIGNATURE_LENGTH = BANDS * ROWS;
+    /**
+     * the estimated Jaccard similarity above which two texts are considered near-duplicates
+     */
+    private static final double SIMILARITY_THRESHOLD = 0.8;
+
+    /**
+     * the seeds of the hash functions used to compute signatures
+     */
+    private long[] seeds = new long[SIGNATURE_LENGTH];
+    /**
+     * a mapping of id to the MinHash signature of its text
+     */
+    private HashMap<UUID, int[]> signatures = new HashMap<>();
+    /**
+     * a mapping of the hash of a band of a signature to the ids whose signatures share that band
+     */
+    private HashMap<Long, HashSet<UUID>> buckets = new HashMap<>();
+    /**
+     * the keys of the buckets that hold at least 2 ids
+     */
+    private HashSet<Long> sharedBuckets = new HashSet<>();
+
+    /**
+     * Constructor of an index that finds near-duplicate texts using MinHash signatures.
+     */
+    public MinHashIndex() {
+        Random random = new Random(207);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            seeds[i] = random.nextLong() | 1;
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void add(UUID id, String text) {
+        remove(id);
+        int[] signature = signature(text);
+        if (signature == null) {
+            return;
+        }
+        signatures.put(id, signature);
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(band, signature);
+            HashSet<UUID> bucket = buckets.computeIfAbsent(key, k -> new HashSet<>());
+            bucket.add(id);
+            if (bucket.size() == 2) {
+                sharedBuckets.add(key);
+            }
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void remove(UUID id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(band, signature);
+            HashSet<UUID> bucket = buckets.get(key);
+            bucket.remove(id);
+            if (bucket.size() < 2) {
+                sharedBuckets.remove(key);
+            }
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns groups of near-duplicate ids. Only buckets that hold more than one id are visited, and each id in a
+     * bucket is compared against a few representatives of that bucket rather than against every other id.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public synchronized List<Set<UUID>> getClusters() {
+        HashMap<UUID, UUID> parents = new HashMap<>();
+        for (long key : sharedBuckets) {
+            List<UUID> representatives = new ArrayList<>();
+            for (UUID id : buckets.get(key)) {
+                UUID match = null;
+                for (UUID representative : representatives) {
+                    if (similarity(signatures.get(id), signatures.get(representative)) >= SIMILARITY_THRESHOLD) {
+                        match = representative;
+                        break;
+                    }
+                }
+                if (match == null) {
+                    representatives.add(id);
+                } else {
+                    union(parents, match, id);
+                }
+            }
+        }
+
+        HashMap<UUID, Set<UUID>> groups = new HashMap<>();
+        for (UUID id : parents.keySet()) {
+            groups.computeIfAbsent(find(parents, id), root -> new HashSet<>()).add(id);
+        }
+        List<Set<UUID>> clusters = new ArrayList<>();
+        for (Set<UUID> group : groups.values()) {
+            if (group.size() > 1) {
+                clusters.add(group);
+            }
+        }
+        clusters.sort(Comparator.comparingInt(cluster -> -cluster.size()));
+        return clusters;
+    }
+
+    private int[] signature(String text) {
+        String normalized = text.toLowerCase().trim().replaceAll("\\s+", " ");
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            signature[i] = Integer.MAX_VALUE;
+        }
+        int shingles = Math.max(1, normalized.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            int end = Math.min(start + SHINGLE_LENGTH, normalized.length());
+            long shingle = 0;
+            for (int i = start; i < end; i++) {
+                shingle = shingle * 31 + normalized.charAt(i);
+            }
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                int value = (int) (mix(shingle * seeds[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(int band, int[] signature) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = key * 0x100000001B3L + signature[band * ROWS + row];
+        }
+        return mix(key);
+    }
+
+    private double similarity(int[] signature1, int[] signature2) {
+        int matches = 0;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            if (signature1[i] == signature2[i]) {
+                matches++;
+            }
+        }
+        return (double) matches / SIGNATURE_LENGTH;
+    }
+
+    private long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        x *= 0xC4CEB9FE1A85EC53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    private UUID find(HashMap<UUID, UUID> parents, UUID id) {
+        UUID root = id;
+        while (parents.containsKey(root) && !parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        while (!id.equals(root)) {
+            UUID next = parents.get(id);
+            parents.put(id, root);
+            id = next;
+        }
+        return root;
+    }
+
+    private void union(HashMap<UUID, UUID> parents, UUID id1, UUID id2) {
+        parents.putIfAbsent(id1, id1);
+        parents.putIfAbsent(id2, id2);
+        UUID root1 = find(parents, id1);
+        UUID root2 = find(parents, id2);
+        if (!root1.equals(root2)) {
+            parents.put(root2, root1);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package gateway;
+
+import entities.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelAccountSorter implements IAccountSorter {
+    private AccountSorter accountSorter = new AccountSorter();
+    /**
+     * the pool that scores chunks of accounts in parallel
+     */
+    private ForkJoinPool pool;
+    /**
+     * the largest number of accounts scored by a single task; smaller lists are sorted on the calling thread
+     */
+    private int sequentialThreshold;
+
+    /**
+     * A task that finds the closest accounts in a range of a list by splitting the range in half until it is small
+     * enough to score directly, then merging the closest accounts of both halves.
+     */
+    private class ClosestAccountsTask extends RecursiveTask<List<AccountSorter.ScoredAccount>> {
+        private static final long serialVersionUID = 1L;
+
+        private List<Account> accounts;
+        private int from;
+        private int to;
+        private String targetUsername;
+        private int limit;
+
+        private ClosestAccountsTask(List<Account> accounts, int from, int to, String targetUsername, int limit) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.targetUsername = targetUsername;
+            this.limit = limit;
+        }
+
+        @Override
+        protected List<AccountSorter.ScoredAccount> compute() {
+            if (to - from <= sequentialThreshold) {
+                return accountSorter.closest(accounts, from, to, targetUsername, limit);
+            }
+            int middle = (from + to) >>> 1;
+            ClosestAccountsTask left = new ClosestAccountsTask(accounts, from, middle, targetUsername, limit);
+            ClosestAccountsTask right = new ClosestAccountsTask(accounts, middle, to, targetUsername, limit);
+            left.fork();
+            List<AccountSorter.ScoredAccount> rightClosest = right.compute();
+            return merge(left.join(), rightClosest, limit);
+        }
+    }
+
+    /**
+     * Constructor of a sorter that scores accounts on multiple threads
+     *
+     * @param parallelism the number of threads used to score accounts
+     * @param sequentialThreshold the largest number of accounts scored by one thread without splitting further
+     */
+    public ParallelAccountSorter(int parallelism, int sequentialThreshold) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.sequentialThreshold = Math.max(1, sequentialThreshold);
+    }
+
+    /**
+     * Sorts accounts like AccountSorter, splitting lists longer than the sequential threshold into chunks that are
+     * scored in parallel. Each chunk keeps its own closest limit accounts, and the results are merged pairwise.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public void sort(List<Account> accounts, String targetUsername, int limit) {
+        if (accounts.size() <= sequentialThreshold) {
+            accountSorter.sort(accounts, targetUsername, limit);
+            return;
+        }
+        List<Account> snapshot = new ArrayList<>(accounts);
+        List<AccountSorter.ScoredAccount> closest = pool.invoke(
+                new ClosestAccountsTask(snapshot, 0, snapshot.size(), targetUsername, limit));
+        accounts.clear();
+        for (AccountSorter.ScoredAccount scored : closest) {
+            accounts.add(scored.account);
+        }
+    }
+
+    private List<AccountSorter.ScoredAccount> merge(List<AccountSorter.ScoredAccount> closest1,
+                                                    List<AccountSorter.ScoredAccount> closest2, int limit) {
+        int size = closest1.size() + closest2.size();
+        if (limit > 0) {
+            size = Math.min(size, limit);
+        }
+        List<AccountSorter.ScoredAccount> merged = new ArrayList<>(size);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < size) {
+            if (j == closest2.size() ||
+                    (i < closest1.size() && AccountSorter.CLOSEST_FIRST.compare(closest1.get(i), closest2.get(j)) <= 0)) {
+                merged.add(closest1.get(i++));
+            } else {
+                merged.add(closest2.get(j++));
+            }
+        }
+        return merged;
+    }
+}
@@ -4,6 +4,17 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 public class PasswordHash implements IHash {
+    /**
+     * a SHA-512 digest for each thread, since creating one looks up the provider every time
+     */
+    private static final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
     /**
      * Returns a hashed String for the input string parameter
      *
@@ -12,18 +23,14 @@ public class PasswordHash implements IHash {
      */
     @Override
     public String hash(String inputString) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-512");
-            md.update(inputString.getBytes());
-            byte[] bytes = md.digest();
-            StringBuilder out = new StringBuilder();
-            for (byte aByte : bytes) {
-                out.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
-            }
-            return out.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+        MessageDigest md = digests.get();
+        md.reset();
+        md.update(inputString.getBytes());
+        byte[] bytes = md.digest();
+        StringBuilder out = new StringBuilder();
+        for (byte aByte : bytes) {
+            out.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
         }
+        return out.toString();
     }
 }
-
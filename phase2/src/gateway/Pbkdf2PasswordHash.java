@@ -0,0 +1,103 @@
+package gateway;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public class Pbkdf2PasswordHash implements IPasswordHasher {
+    /**
+     * the number of iterations recommended for PBKDF2 with HMAC-SHA512
+     */
+    public static final int DEFAULT_ITERATIONS = 210000;
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA512";
+    /**
+     * the first field of every hash made by this hasher, which tells it apart from a legacy SHA-512 hash
+     */
+    private static final String PREFIX = "pbkdf2";
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_LENGTH = 512;
+
+    /**
+     * a key factory for each thread, since creating one looks up the provider every time
+     */
+    private static final ThreadLocal<SecretKeyFactory> keyFactories = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    });
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * the hasher that made the hashes stored before this one was introduced
+     */
+    private IHash legacyHash = new PasswordHash();
+    /**
+     * the number of iterations of new hashes, which sets how long a hash takes
+     */
+    private int iterations;
+
+    /**
+     * Constructor of a hasher that derives keys from passwords with PBKDF2
+     *
+     * @param iterations the number of iterations of new hashes
+     */
+    public Pbkdf2PasswordHash(int iterations) {
+        this.iterations = iterations;
+    }
+
+    /**
+     * Returns a salted PBKDF2 hash of a password, in the form pbkdf2$iterations$salt$key with the salt and key in
+     * Base64.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public String hash(String inputString) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" +
+                encoder.encodeToString(derive(inputString, salt, iterations));
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public boolean verify(String password, String storedHash) {
+        String[] fields = storedHash.split("\\$");
+        if (fields.length != 4 || !fields[0].equals(PREFIX)) {
+            return MessageDigest.isEqual(legacyHash.hash(password).getBytes(StandardCharsets.UTF_8),
+                    storedHash.getBytes(StandardCharsets.UTF_8));
+        }
+        Base64.Decoder decoder = Base64.getDecoder();
+        byte[] key = derive(password, decoder.decode(fields[2]), Integer.parseInt(fields[1]));
+        return MessageDigest.isEqual(key, decoder.decode(fields[3]));
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public boolean needsRehash(String storedHash) {
+        String[] fields = storedHash.split("\\$");
+        return fields.length != 4 || !fields[0].equals(PREFIX) || Integer.parseInt(fields[1]) < iterations;
+    }
+
+    private byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return keyFactories.get().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
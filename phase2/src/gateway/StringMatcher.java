@@ -1,6 +1,25 @@
 package gateway;
 
 public class StringMatcher {
+    /**
+     * the longest string that fits in the bit vectors of the bit-parallel algorithm
+     */
+    private static final int WORD_SIZE = 64;
+    /**
+     * characters below this value are looked up in the match masks of the bit-parallel algorithm
+     */
+    private static final int ALPHABET_SIZE = 128;
+
+    /**
+     * a mapping of each character of the pattern to a bit mask of the positions where it occurs,
+     * reused between calls on the same thread
+     */
+    private static final ThreadLocal<long[]> matchMasks = ThreadLocal.withInitial(() -> new long[ALPHABET_SIZE]);
+    /**
+     * the two rows of the dynamic programming matrix, reused between calls on the same thread
+     */
+    private static final ThreadLocal<int[][]> rows = ThreadLocal.withInitial(() -> new int[2][WORD_SIZE + 1]);
+
     /**
      * Returns the number of operations (adding a character, deleting a character, changing a character) needed
      * to get from a start string to a target string
@@ -10,34 +29,147 @@ public class StringMatcher {
      * @return the number of operations needed to convert word1 to word2
      */
     public int editDistance(String word1, String word2) {
+        return editDistance(word1, word2, Math.max(word1.length(), word2.length()));
+    }
+
+    /**
+     * Returns the number of operations needed to get from a start string to a target string, or stops early and
+     * returns maxDistance + 1 once that number is known to be larger than maxDistance
+     *
+     * @param word1 the start string
+     * @param word2 the target string
+     * @param maxDistance the largest number of operations that is of interest
+     * @return the number of operations needed to convert word1 to word2, or maxDistance + 1 if it is larger
+     */
+    public int editDistance(String word1, String word2, int maxDistance) {
+        // the distance is symmetric, so let word2 be the shorter string
+        if (word1.length() < word2.length()) {
+            String temp = word1;
+            word1 = word2;
+            word2 = temp;
+        }
+        maxDistance = Math.min(maxDistance, word1.length());
+        if (word1.length() - word2.length() > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (word2.isEmpty()) {
+            return word1.length();
+        }
+        if (word2.length() <= WORD_SIZE && isAscii(word2)) {
+            return bitParallelDistance(word1, word2, maxDistance);
+        }
+        return bandedDistance(word1, word2, maxDistance);
+    }
+
+    private boolean isAscii(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) >= ALPHABET_SIZE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the edit distance with Myers' bit-vector algorithm, which keeps a whole column of the dynamic
+     * programming matrix in two words and updates it in a constant number of operations per character of text.
+     *
+     * @param text the longer string
+     * @param pattern the shorter string, at most WORD_SIZE ASCII characters
+     * @param maxDistance the largest distance that is of interest
+     * @return the edit distance, or maxDistance + 1 if it is larger
+     */
+    private int bitParallelDistance(String text, String pattern, int maxDistance) {
+        long[] masks = matchMasks.get();
+        int length = pattern.length();
+        for (int i = 0; i < length; i++) {
+            masks[pattern.charAt(i)] |= 1L << i;
+        }
+
+        long lastBit = 1L << (length - 1);
+        long positive = -1L;
+        long negative = 0L;
+        int score = length;
+        int distance = -1;
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            long match = c < ALPHABET_SIZE ? masks[c] : 0L;
+            long vertical = match | negative;
+            long horizontal = (((match & positive) + positive) ^ positive) | match;
+            long horizontalPositive = negative | ~(horizontal | positive);
+            long horizontalNegative = positive & horizontal;
+            if ((horizontalPositive & lastBit) != 0) {
+                score++;
+            } else if ((horizontalNegative & lastBit) != 0) {
+                score--;
+            }
+            // each remaining character of text can lower the score by at most 1
+            if (score - (text.length() - j - 1) > maxDistance) {
+                distance = maxDistance + 1;
+                break;
+            }
+            horizontalPositive = (horizontalPositive << 1) | 1L;
+            horizontalNegative = horizontalNegative << 1;
+            positive = horizontalNegative | ~(vertical | horizontalPositive);
+            negative = horizontalPositive & vertical;
+        }
+
+        for (int i = 0; i < length; i++) {
+            masks[pattern.charAt(i)] = 0L;
+        }
+        return distance == -1 ? Math.min(score, maxDistance + 1) : distance;
+    }
+
+    /**
+     * Computes the edit distance with two rows of the dynamic programming matrix, only filling in the cells within
+     * maxDistance of the diagonal (Ukkonen's cut-off), since every other cell is known to exceed maxDistance.
+     *
+     * @param word1 the longer string
+     * @param word2 the shorter string
+     * @param maxDistance the largest distance that is of interest
+     * @return the edit distance, or maxDistance + 1 if it is larger
+     */
+    private int bandedDistance(String word1, String word2, int maxDistance) {
         int length1 = word1.length();
         int length2 = word2.length();
-        // dp[i][j] represents the edit distance of word[i:] and word[j:]
-        int[][] dp = new int[length1 + 1][length2 + 1];
-
-        // preprocess dp matrix
-        // edit distance from "" to word[j:]
-        for (int j = length2 - 1; j >= 0; j--) {
-            dp[length1][j] = dp[length1][j + 1] + 1;
-        }
-        // edit distance from word[i:] to ""
-        for (int i = length1 - 1; i >= 0; i--) {
-            dp[i][length2] = dp[i + 1][length2] + 1;
-        }
-
-        // fill in remainder of dp matrix
-        for (int i = length1 - 1; i >= 0; i--) {
-            for (int j = length2 - 1; j >= 0; j--) {
-                if (word1.charAt(i) == word2.charAt(j)) {
-                    dp[i][j] = dp[i + 1][j + 1];
-                } else {
-                    int delete1 = dp[i + 1][j];
-                    int delete2 = dp[i][j + 1];
-                    int replace = dp[i + 1][j + 1];
-                    dp[i][j] = Math.min(Math.min(delete1, delete2), replace) + 1;
-                }
+        int outOfBand = maxDistance + 1;
+        int[][] scratch = rows.get();
+        if (scratch[0].length < length2 + 1) {
+            scratch = new int[2][length2 + 1];
+            rows.set(scratch);
+        }
+        // previous[j] is the edit distance of word1[:i - 1] and word2[:j]
+        int[] previous = scratch[0];
+        int[] current = scratch[1];
+        for (int j = 0; j <= length2; j++) {
+            previous[j] = j <= maxDistance ? j : outOfBand;
+        }
+
+        for (int i = 1; i <= length1; i++) {
+            int low = Math.max(1, i - maxDistance);
+            int high = Math.min(length2, i + maxDistance);
+            current[low - 1] = low == 1 && i <= maxDistance ? i : outOfBand;
+            int rowMinimum = current[low - 1];
+            char c = word1.charAt(i - 1);
+            for (int j = low; j <= high; j++) {
+                int replace = previous[j - 1] + (c == word2.charAt(j - 1) ? 0 : 1);
+                int delete1 = previous[j] + 1;
+                int delete2 = current[j - 1] + 1;
+                int value = Math.min(Math.min(replace, delete1), Math.min(delete2, outOfBand));
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (high < length2) {
+                current[high + 1] = outOfBand;
+            }
+            // every alignment passes through this row and costs never decrease along it
+            if (rowMinimum > maxDistance) {
+                return outOfBand;
             }
+            int[] temp = previous;
+            previous = current;
+            current = temp;
         }
-        return dp[0][0];
+        return previous[length2];
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class StripedLocks {
+    /**
+     * the locks, each guarding every key whose hash falls in its stripe
+     */
+    private ReentrantLock[] stripes;
+
+    /**
+     * Constructor of a fixed set of locks shared by many keys, so that a lock does not have to be kept per key.
+     *
+     * @param stripes the number of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Acquires the locks of some keys, waiting for each in turn. Locks are always acquired in order of stripe, so two
+     * threads locking the same keys in a different order cannot deadlock, and a stripe shared by two keys is only
+     * acquired once.
+     *
+     * @param keys the keys to be locked
+     * @return the acquired locks, to be passed to unlock
+     */
+    public List<ReentrantLock> lock(Object... keys) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Object key : keys) {
+            indices.add(indexOf(key));
+        }
+        List<ReentrantLock> locks = new ArrayList<>(indices.size());
+        for (int index : indices) {
+            stripes[index].lock();
+            locks.add(stripes[index]);
+        }
+        return locks;
+    }
+
+    /**
+     * Releases locks acquired by lock, in the reverse order
+     *
+     * @param locks the locks returned by lock
+     */
+    public void unlock(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    private int indexOf(Object key) {
+        int hash = Objects.hashCode(key);
+        // spread the high bits of the hash into the low bits used to pick a stripe
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+}
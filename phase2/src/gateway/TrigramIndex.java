@@ -0,0 +1,204 @@
+package gateway;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+public class TrigramIndex implements IUsernameIndex {
+    /**
+     * the character used to pad the start and end of a username, so that short usernames still have trigrams and
+     * the first and last characters weigh as much as the others
+     */
+    private static final char PADDING = '\u0001';
+    /**
+     * the smallest number of candidates returned by a search
+     */
+    private static final int MIN_CANDIDATES = 64;
+    /**
+     * the number of candidates returned for each username requested by a search
+     */
+    private static final int CANDIDATES_PER_RESULT = 4;
+    /**
+     * posting lists with more ids than this are skipped, since trigrams shared by a large share of usernames say
+     * little about similarity but dominate the cost of a search. A query whose trigrams are all this common is not
+     * searched at all.
+     */
+    private static final int MAX_COMMON_POSTINGS = 10000;
+
+    /**
+     * A sorted list of ids stored as the differences between consecutive ids, each written in as few bytes as
+     * possible. Ids are handed out in increasing order, so new ids are always appended to the end.
+     */
+    private static class PostingList {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int size;
+        private int lastId = -1;
+
+        private void add(int id) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            int delta = id - lastId;
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            lastId = id;
+            size++;
+        }
+    }
+
+    /**
+     * a mapping of username to its id
+     */
+    private Map<String, Integer> ids = new HashMap<>();
+    /**
+     * a list of usernames where the i-th element is the username with id i, or null if it was removed
+     */
+    private List<String> usernames = new ArrayList<>();
+    /**
+     * a list where the i-th element is the number of distinct trigrams of the username with id i
+     */
+    private List<Integer> trigramCounts = new ArrayList<>();
+    /**
+     * a mapping of a trigram to the ids of the usernames that contain it
+     */
+    private Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void add(String username) {
+        if (ids.containsKey(username)) {
+            return;
+        }
+        int id = usernames.size();
+        ids.put(username, id);
+        usernames.add(username);
+        Set<Long> trigrams = trigrams(username);
+        trigramCounts.add(trigrams.size());
+        for (long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, t -> new PostingList()).add(id);
+        }
+    }
+
+    /**
+     * Removes a username. Its id is left behind in the posting lists and skipped by searches until removed ids
+     * outnumber the remaining ones, at which point the index is rebuilt with new ids.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public synchronized void remove(String username) {
+        Integer id = ids.remove(username);
+        if (id == null) {
+            return;
+        }
+        usernames.set(id, null);
+        if (usernames.size() - ids.size() > ids.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the usernames that share the most trigrams with the search query relative to their combined number of
+     * trigrams. Only the posting lists of the query's trigrams are read, and very common trigrams are skipped, so
+     * the work stays bounded as the number of usernames grows.
+     *
+     * @inheritDoc
+     */
+    @Override
+    public synchronized List<String> search(String targetUsername, int limit) {
+        Set<Long> targetTrigrams = trigrams(targetUsername);
+        List<PostingList> postingLists = new ArrayList<>();
+        for (long trigram : targetTrigrams) {
+            PostingList postingList = postings.get(trigram);
+            if (postingList != null) {
+                postingLists.add(postingList);
+            }
+        }
+        postingLists.sort(Comparator.comparingInt(postingList -> postingList.size));
+        if (!postingLists.isEmpty() && postingLists.get(0).size > MAX_COMMON_POSTINGS) {
+            return null;
+        }
+
+        Map<Integer, Integer> overlaps = new HashMap<>();
+        for (PostingList postingList : postingLists) {
+            if (postingList.size > MAX_COMMON_POSTINGS) {
+                break;
+            }
+            int id = -1;
+            int position = 0;
+            while (position < postingList.length) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = postingList.bytes[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                id += delta;
+                if (usernames.get(id) != null) {
+                    overlaps.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        int candidates = Math.max(MIN_CANDIDATES, limit * CANDIDATES_PER_RESULT);
+        PriorityQueue<Map.Entry<String, Double>> shortlist = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Integer> overlap : overlaps.entrySet()) {
+            String username = usernames.get(overlap.getKey());
+            double similarity = similarity(overlap.getValue(), targetTrigrams.size(),
+                    trigramCounts.get(overlap.getKey()));
+            if (shortlist.size() < candidates) {
+                shortlist.add(Map.entry(username, similarity));
+            } else if (similarity > shortlist.peek().getValue()) {
+                shortlist.poll();
+                shortlist.add(Map.entry(username, similarity));
+            }
+        }
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Double> candidate : shortlist) {
+            result.add(candidate.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the Jaccard similarity of two sets of trigrams: the size of their intersection over the size of their
+     * union
+     */
+    private double similarity(int overlap, int targetTrigrams, int trigrams) {
+        return (double) overlap / (targetTrigrams + trigrams - overlap);
+    }
+
+    private Set<Long> trigrams(String username) {
+        String padded = "" + PADDING + PADDING + username + PADDING;
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        return trigrams;
+    }
+
+    private void rebuild() {
+        List<String> remaining = new ArrayList<>(ids.keySet());
+        ids.clear();
+        usernames.clear();
+        trigramCounts.clear();
+        postings.clear();
+        for (String username : remaining) {
+            add(username);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package gateway;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class UsernameTrie {
+    private static class Node {
+        /**
+         * the username ending at this node, or null if no username ends here
+         */
+        private volatile String username;
+        /**
+         * the children of this node ordered by character, so that a walk visits usernames alphabetically. Writers
+         * replace it with a changed copy rather than changing it, so readers always see a consistent set of children.
+         */
+        private volatile Children children = Children.NONE;
+
+        private Node child(char c) {
+            Children current = children;
+            int position = Arrays.binarySearch(current.characters, c);
+            return position >= 0 ? current.nodes[position] : null;
+        }
+    }
+
+    /**
+     * The characters of the children of a node in sorted order, and the child for each character
+     */
+    private static class Children {
+        private static final Children NONE = new Children(new char[0], new Node[0]);
+
+        private final char[] characters;
+        private final Node[] nodes;
+
+        private Children(char[] characters, Node[] nodes) {
+            this.characters = characters;
+            this.nodes = nodes;
+        }
+
+        private Children with(char c, Node node) {
+            int position = -Arrays.binarySearch(characters, c) - 1;
+            char[] newCharacters = new char[characters.length + 1];
+            Node[] newNodes = new Node[nodes.length + 1];
+            System.arraycopy(characters, 0, newCharacters, 0, position);
+            System.arraycopy(nodes, 0, newNodes, 0, position);
+            newCharacters[position] = c;
+            newNodes[position] = node;
+            System.arraycopy(characters, position, newCharacters, position + 1, characters.length - position);
+            System.arraycopy(nodes, position, newNodes, position + 1, nodes.length - position);
+            return new Children(newCharacters, newNodes);
+        }
+
+        private Children without(char c) {
+            int position = Arrays.binarySearch(characters, c);
+            if (position < 0) {
+                return this;
+            }
+            if (characters.length == 1) {
+                return NONE;
+            }
+            char[] newCharacters = new char[characters.length - 1];
+            Node[] newNodes = new Node[nodes.length - 1];
+            System.arraycopy(characters, 0, newCharacters, 0, position);
+            System.arraycopy(nodes, 0, newNodes, 0, position);
+            System.arraycopy(characters, position + 1, newCharacters, position, characters.length - position - 1);
+            System.arraycopy(nodes, position + 1, newNodes, position, nodes.length - position - 1);
+            return new Children(newCharacters, newNodes);
+        }
+    }
+
+    private Node root = new Node();
+
+    /**
+     * Adds a username to the trie. Writers are serialized; readers never lock.
+     *
+     * @param username a username
+     */
+    public synchronized void add(String username) {
+        Node node = root;
+        for (int i = 0; i < username.length(); i++) {
+            Node child = node.child(username.charAt(i));
+            if (child == null) {
+                child = new Node();
+                node.children = node.children.with(username.charAt(i), child);
+            }
+            node = child;
+        }
+        node.username = username;
+    }
+
+    /**
+     * Removes a username from the trie, along with any nodes left without usernames below them.
+     *
+     * @param username a username
+     */
+    public synchronized void remove(String username) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < username.length(); i++) {
+            node = node.child(username.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path.add(node);
+        }
+        node.username = null;
+        for (int i = username.length(); i > 0; i--) {
+            Node child = path.get(i);
+            if (child.username != null || child.children.nodes.length > 0) {
+                break;
+            }
+            Node parent = path.get(i - 1);
+            parent.children = parent.children.without(username.charAt(i - 1));
+        }
+    }
+
+    /**
+     * Returns the usernames that start with a prefix in alphabetical order. Only the nodes on the way to the prefix
+     * and the nodes of the returned usernames are visited.
+     *
+     * @param prefix the start of a username
+     * @param limit the maximum number of usernames to be returned
+     * @return up to limit usernames starting with prefix
+     */
+    public List<String> startingWith(String prefix, int limit) {
+        List<String> usernames = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null && limit > 0) {
+            collect(node, usernames, limit);
+        }
+        return usernames;
+    }
+
+    private void collect(Node node, List<String> usernames, int limit) {
+        String username = node.username;
+        if (username != null) {
+            usernames.add(username);
+        }
+        for (Node child : node.children.nodes) {
+            if (usernames.size() >= limit) {
+                return;
+            }
+            collect(child, usernames, limit);
+        }
+    }
+}
@@ -3,12 +3,26 @@ package handlers;
 import controllers.AccountController;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import presenters.JsonPresenter;
 import useCases.ManagerData;
 import viewModel.ViewModel;
 
 import java.util.*;
 
 public class AccountHandlers extends Handlers {
+    /**
+     * the largest number of usernames returned by one autocomplete request
+     */
+    private static final int MAX_AUTOCOMPLETE_LIMIT = 50;
+    /**
+     * the number of accounts on one page of followers or followees
+     */
+    private static final int FOLLOW_PAGE_SIZE = 50;
+    /**
+     * the number of logins on one page of the login history
+     */
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     private ManagerData managerData;
     private AccountController accountController;
     public AccountHandlers(ManagerData managerData) {
@@ -26,7 +40,7 @@ public class AccountHandlers extends Handlers {
         int limit = 10;
         Map<String, Deque<String>> props = exchange.getQueryParameters();
         String targetUsername = props.get("targetUsername").getFirst();
-        List<Map<String, String>> accounts = accountController.search(targetUsername, limit);
+        List<Map<String, String>> accounts = accountController.search(getCurrentUser(exchange), targetUsername, limit);
         ViewModel viewModel = new ViewModel();
         viewModel.put("accounts", accounts);
         viewModel.addFormField("targetUsername", "Username", "text");
@@ -35,6 +49,40 @@ public class AccountHandlers extends Handlers {
         present(exchange, viewModel.getContext(), templatePath);
     }
 
+    /**
+     * Represents HttpHandler Class
+     * Handles GET requests for usernames starting with a prefix, responding with a JSON list of usernames. Only
+     * logged in users may autocomplete, at a limited rate, so that the list of usernames cannot be enumerated.
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void autocompleteUsername(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        String user = getCurrentUser(exchange);
+        if (user == null) {
+            exchange.setStatusCode(401);
+            exchange.getResponseSender().send("[]");
+            return;
+        }
+        if (!managerData.getAutocompleteLimiter().tryAcquire(user)) {
+            exchange.setStatusCode(429);
+            exchange.getResponseSender().send("[]");
+            return;
+        }
+        Map<String, Deque<String>> props = exchange.getQueryParameters();
+        String prefix = props.containsKey("prefix") ? props.get("prefix").getFirst() : "";
+        int limit = 10;
+        if (props.containsKey("limit")) {
+            try {
+                limit = Math.min(Integer.parseInt(props.get("limit").getFirst()), MAX_AUTOCOMPLETE_LIMIT);
+            } catch (NumberFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        List<String> usernames = prefix.isEmpty() ? new ArrayList<>() : accountController.autocomplete(prefix, limit);
+        exchange.getResponseSender().send(new JsonPresenter(usernames).present());
+    }
+
     /**
      * Represents HttpHandler Class
      * Handles GET request for displaying search page
@@ -57,7 +105,8 @@ public class AccountHandlers extends Handlers {
      */
     public void deleteSelf(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        accountController.deleteSelf();
+        accountController.deleteSelf(getCurrentUser(exchange));
+        SessionHandler.endSession(exchange);
         new LandingHandlers(managerData).login(exchange);
         managerData.save();
     }
@@ -71,7 +120,7 @@ public class AccountHandlers extends Handlers {
     public void follow(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
         String userToFollow = exchange.getQueryParameters().get("username").getFirst();
-        accountController.follow(managerData.getCurrentUser(), userToFollow);
+        accountController.follow(getCurrentUser(exchange), userToFollow);
     }
 
     /**
@@ -82,7 +131,8 @@ public class AccountHandlers extends Handlers {
      */
     public void logout(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        accountController.logout();
+        accountController.logout(SessionHandler.getSessionToken(exchange));
+        SessionHandler.endSession(exchange);
         new LandingHandlers(managerData).login(exchange);
     }
 
@@ -95,58 +145,90 @@ public class AccountHandlers extends Handlers {
     public void unfollow(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
         String userToFollow = exchange.getQueryParameters().get("username").getFirst();
-        accountController.unfollow(managerData.getCurrentUser(), userToFollow);
+        accountController.unfollow(getCurrentUser(exchange), userToFollow);
     }
 
     /**
      * Represents HttpHandler Class
-     * Handles GET request for displaying list of followers for
-     * specified account
+     * Handles GET request for displaying one page of the list of followers
+     * for specified account, starting after the cursor given by "after"
      *
      * @param exchange An HTTP server request/response exchange
      */
     public void followers(HttpServerExchange exchange) {
-        String templatePath = "src/templates/followers.jinja";
-        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
         String user = exchange.getQueryParameters().get("username").getFirst();
-        List<Map<String, String>> accounts = accountController.getFollowers(user);
-        ViewModel viewModel = new ViewModel();
-        viewModel.put("accounts", accounts);
-        viewModel.put("message", "Followers");
-        viewModel.put("promote", managerData.getCurrentUserRole());
-        present(exchange, viewModel.getContext(), templatePath);
+        Map<String, Object> page = accountController.getFollowers(getCurrentUser(exchange), user, getCursor(exchange),
+                FOLLOW_PAGE_SIZE);
+        presentFollowPage(exchange, page, "Followers", "/followers/" + user);
     }
 
     /**
      * Represents HttpHandler Class
-     * Handles GET request for page displaying list of accounts
-     * following specified account
+     * Handles GET request for page displaying one page of the list of accounts
+     * following specified account, starting after the cursor given by "after"
      *
      * @param exchange An HTTP server request/response exchange
      */
     public void following(HttpServerExchange exchange) {
-        String templatePath = "src/templates/followers.jinja";
-        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
         String user = exchange.getQueryParameters().get("username").getFirst();
-        List<Map<String, String>> accounts = accountController.getFollowing(user);
+        Map<String, Object> page = accountController.getFollowing(getCurrentUser(exchange), user, getCursor(exchange),
+                FOLLOW_PAGE_SIZE);
+        presentFollowPage(exchange, page, "Following", "/following/" + user);
+    }
+
+    private int getCursor(HttpServerExchange exchange) {
+        Deque<String> after = exchange.getQueryParameters().get("after");
+        if (after != null) {
+            try {
+                return Integer.parseInt(after.getFirst());
+            } catch (NumberFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        return -1;
+    }
+
+    private void presentFollowPage(HttpServerExchange exchange, Map<String, Object> page, String message,
+                                   String endpoint) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
         ViewModel viewModel = new ViewModel();
-        viewModel.put("accounts", accounts);
-        viewModel.put("message", "Following");
-        viewModel.put("promote", managerData.getCurrentUserRole());
-        present(exchange, viewModel.getContext(), templatePath);
+        viewModel.put("accounts", page.get("accounts"));
+        viewModel.put("message", message);
+        viewModel.put("promote", managerData.isAdmin(getCurrentUser(exchange)));
+        if ((int) page.get("nextCursor") != -1) {
+            viewModel.put("nextPage", endpoint + "?after=" + page.get("nextCursor"));
+        }
+        present(exchange, viewModel.getContext(), "src/templates/followers.jinja");
     }
 
     /**
      * Represents HttpHandler Class
-     * Handles GET request for displaying requesters login history
+     * Handles GET request for displaying one page of requesters login history,
+     * given by the "page" query parameter
      *
      * @param exchange An HTTP server request/response exchange
      */
     public void viewHistory(HttpServerExchange exchange) {
         String templatePath = "src/templates/history.jinja";
+        int page = 0;
+        Deque<String> pageParameter = exchange.getQueryParameters().get("page");
+        if (pageParameter != null) {
+            try {
+                page = Math.max(Integer.parseInt(pageParameter.getFirst()), 0);
+            } catch (NumberFormatException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        Map<String, Object> history = accountController.viewHistory(getCurrentUser(exchange), page, HISTORY_PAGE_SIZE);
         ViewModel viewModel = new ViewModel();
-        List<String> dates = accountController.viewHistory();
-        viewModel.put("dates", dates);
+        viewModel.put("dates", history.get("dates"));
+        viewModel.put("dailyCounts", history.get("dailyCounts"));
+        if (page > 0) {
+            viewModel.put("previousPage", "/history?page=" + (page - 1));
+        }
+        if ((boolean) history.get("hasNext")) {
+            viewModel.put("nextPage", "/history?page=" + (page + 1));
+        }
         present(exchange, viewModel.getContext(), templatePath);
     }
 }
@@ -1,17 +1,30 @@
 package handlers;
 
 import controllers.AdminController;
+import io.undertow.io.Receiver;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
+import io.undertow.util.QueryParameterUtils;
+import presenters.JsonPresenter;
 import useCases.ManagerData;
+import viewModel.ViewModel;
 
-public class AdminHandlers {
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+public class AdminHandlers extends Handlers {
 
     private ManagerData managerData;
     private AdminController adminController;
+    private DispatchHandler dispatchHandler;
 
-    public AdminHandlers(ManagerData managerData) {
+    public AdminHandlers(ManagerData managerData, DispatchHandler dispatchHandler) {
         this.managerData = managerData;
+        this.dispatchHandler = dispatchHandler;
         adminController = new AdminController(managerData);
     }
 
@@ -23,7 +36,7 @@ public class AdminHandlers {
      */
     public void promote(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        if (managerData.getCurrentUserRole()) {
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
             String userToPromote = exchange.getQueryParameters().get("username").getFirst();
             adminController.promote(userToPromote);
         }
@@ -40,7 +53,7 @@ public class AdminHandlers {
      */
     public void ban(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        if (managerData.getCurrentUserRole()) {
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
             String user = exchange.getQueryParameters().get("username").getFirst();
             adminController.ban(user);
         }
@@ -57,7 +70,7 @@ public class AdminHandlers {
      */
     public void unban(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        if (managerData.getCurrentUserRole()) {
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
             String user = exchange.getQueryParameters().get("username").getFirst();
             adminController.unban(user);
         }
@@ -74,7 +87,7 @@ public class AdminHandlers {
      */
     public void deleteUser(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        if (managerData.getCurrentUserRole()) {
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
             String user = exchange.getQueryParameters().get("username").getFirst();
             adminController.deleteUser(user);
         }
@@ -82,4 +95,85 @@ public class AdminHandlers {
             exchange.getResponseSender().send("invalid permissions");
         }
     }
+
+    /**
+     * Represents HttpHandler Class
+     * Handles POST requests for moderating many users at once, responding with a JSON object of the result for
+     * each user. The form takes an action (ban, unban, promote or delete), usernames separated by commas, spaces
+     * or new lines, and a username pattern such as bot*.
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void moderate(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
+                @Override
+                public void handle(HttpServerExchange exchange, String message) {
+                    if (!managerData.isAdmin(getCurrentUser(exchange))) {
+                        exchange.setStatusCode(403);
+                        exchange.getResponseSender().send("{\"error\":\"invalid permissions\"}");
+                        return;
+                    }
+                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
+                    String action = props.containsKey("action") ? props.get("action").getFirst() : "";
+                    List<String> usernames = new ArrayList<>();
+                    for (String value : props.getOrDefault("usernames", new ArrayDeque<>())) {
+                        for (String username : value.split("[,+\\s]+")) {
+                            if (!username.isEmpty()) {
+                                usernames.add(username);
+                            }
+                        }
+                    }
+                    String pattern = props.containsKey("pattern") ? props.get("pattern").getFirst() : null;
+
+                    Map<String, Object> model = adminController.moderate(action, usernames, pattern);
+                    if (model.containsKey("error")) {
+                        exchange.setStatusCode(400);
+                    }
+                    exchange.getResponseSender().send(new JsonPresenter(model).present());
+                }
+            }
+        );
+    }
+
+    /**
+     * Represents HttpHandler Class
+     * Handles GET requests for viewing groups of near-duplicate posts and comments
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void nearDuplicates(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
+            ViewModel viewModel = new ViewModel();
+            viewModel.put("postClusters", adminController.getNearDuplicatePosts());
+            viewModel.put("commentClusters", adminController.getNearDuplicateComments());
+            String templatePath = "src/templates/duplicates.jinja";
+            present(exchange, viewModel.getContext(), templatePath);
+        }
+        else {
+            exchange.getResponseSender().send("invalid permissions");
+        }
+    }
+
+    /**
+     * Represents HttpHandler Class
+     * Handles GET requests for performance metrics, responding with a JSON object
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void metrics(HttpServerExchange exchange) {
+        if (managerData.isAdmin(getCurrentUser(exchange))) {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+            Map<String, Object> metrics = adminController.getMetrics();
+            if (dispatchHandler != null) {
+                metrics.put("dispatch", dispatchHandler.getStatistics());
+            }
+            exchange.getResponseSender().send(new JsonPresenter(metrics).present());
+        }
+        else {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
+            exchange.getResponseSender().send("invalid permissions");
+        }
+    }
 }
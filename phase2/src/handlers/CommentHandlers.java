@@ -5,12 +5,19 @@ import io.undertow.io.Receiver;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import io.undertow.util.QueryParameterUtils;
+import presenters.JsonPresenter;
 import useCases.ManagerData;
 import viewModel.ViewModel;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class CommentHandlers extends Handlers {
+    /**
+     * the maximum number of comments accepted in one batch
+     */
+    private static final int MAX_BATCH_SIZE = 10000;
+
     private ManagerData managerData;
     private CommentController commentController;
     public CommentHandlers(ManagerData managerData) {
@@ -32,10 +39,10 @@ public class CommentHandlers extends Handlers {
                     Map<String, Deque<String>> props1 = exchange.getQueryParameters();
                     String postIdString = props1.get("postId").getFirst();
                     UUID postId = UUID.fromString(postIdString);
-                    Map<String, Deque<String>> props2 = QueryParameterUtils.parseQueryString(message, "UTF_8");
+                    Map<String, Deque<String>> props2 = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
                     String comment = props2.get("comment").getFirst();
                     comment = comment.replace('+', ' ');
-                    String author = managerData.getCurrentUser();
+                    String author = getCurrentUser(exchange);
                     commentController.addComment(postId, comment, author);
                     ViewModel viewModel = new ViewModel();
                     viewModel.put("endpoint", "viewComments/" + postIdString);
@@ -46,6 +53,51 @@ public class CommentHandlers extends Handlers {
         );
     }
 
+    /**
+     * Represents HttpHandler Class
+     * Handles POST request for adding a batch of comments. The form body repeats the postId and comment fields once
+     * per comment; admins may also repeat an author field to import comments on behalf of other users.
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void addComments(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "application/json");
+        String user = getCurrentUser(exchange);
+        if (user == null) {
+            exchange.setStatusCode(401);
+            exchange.getResponseSender().send("{\"error\":\"not logged in\"}");
+            return;
+        }
+        exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
+                @Override
+                public void handle(HttpServerExchange exchange, String message) {
+                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
+                    Deque<String> postIds = props.getOrDefault("postId", new ArrayDeque<>());
+                    Deque<String> comments = props.getOrDefault("comment", new ArrayDeque<>());
+                    Deque<String> authors = props.getOrDefault("author", new ArrayDeque<>());
+                    boolean isAdmin = managerData.isAdmin(user);
+                    if (postIds.size() != comments.size() || postIds.size() > MAX_BATCH_SIZE ||
+                            (isAdmin && !authors.isEmpty() && authors.size() != comments.size())) {
+                        exchange.setStatusCode(400);
+                        exchange.getResponseSender().send("{\"error\":\"invalid batch\"}");
+                        return;
+                    }
+
+                    List<String> contents = new ArrayList<>(comments.size());
+                    for (String comment : comments) {
+                        contents.add(comment.replace('+', ' '));
+                    }
+                    // only admins may add comments on behalf of other users
+                    List<String> commentAuthors = isAdmin && !authors.isEmpty() ?
+                            new ArrayList<>(authors) : Collections.nCopies(comments.size(), user);
+                    List<Map<String, String>> results =
+                            commentController.addComments(new ArrayList<>(postIds), contents, commentAuthors);
+                    exchange.getResponseSender().send(new JsonPresenter(results).present());
+                }
+            }
+        );
+    }
+
     /**
      * Represents HttpHandler Class
      * Handles GET request for viewing comments
@@ -66,4 +118,22 @@ public class CommentHandlers extends Handlers {
         String templatePath = "src/templates/comments.jinja";
         present(exchange, viewModel.getContext(), templatePath);
     }
+
+    /**
+     * Represents HttpHandler Class
+     * Handles GET request for viewing the comments written by a user
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public void viewUserComments(HttpServerExchange exchange) {
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
+        String username = exchange.getQueryParameters().get("username").getFirst();
+
+        ViewModel viewModel = new ViewModel();
+        viewModel.put("comments", commentController.getCommentsWrittenBy(username));
+        viewModel.put("username", username);
+
+        String templatePath = "src/templates/userComments.jinja";
+        present(exchange, viewModel.getContext(), templatePath);
+    }
 }
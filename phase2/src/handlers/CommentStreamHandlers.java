@@ -0,0 +1,126 @@
+package handlers;
+
+import controllers.CommentController;
+import io.undertow.server.HttpHandler;
+import io.undertow.util.Headers;
+import io.undertow.server.handlers.sse.ServerSentEventConnection;
+import io.undertow.server.handlers.sse.ServerSentEventHandler;
+import org.xnio.IoUtils;
+import presenters.JsonPresenter;
+import useCases.ManagerData;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommentStreamHandlers {
+    /**
+     * the maximum number of events that may be queued on a connection before it is dropped
+     */
+    private static final int MAX_PENDING_EVENTS = 64;
+    /**
+     * the interval in milliseconds in which keep alive messages are sent to idle connections
+     */
+    private static final long KEEP_ALIVE_TIME = 15000;
+
+    /**
+     * a mapping of the id of a post to the connections subscribed to its comments
+     */
+    private Map<String, Set<ServerSentEventConnection>> subscribers = new ConcurrentHashMap<>();
+    /**
+     * a mapping of each connection to the number of events that have not been written to it yet
+     */
+    private Map<ServerSentEventConnection, AtomicInteger> pendingEvents = new ConcurrentHashMap<>();
+    private ServerSentEventHandler streamHandler;
+
+    /**
+     * Constructor for the handlers of comment streams
+     *
+     * @param managerData a class that contains data for all 3 managers
+     */
+    public CommentStreamHandlers(ManagerData managerData) {
+        streamHandler = new ServerSentEventHandler(this::subscribe);
+        new CommentController(managerData).addCommentListener(this::broadcast);
+    }
+
+    /**
+     * Represents HttpHandler Class
+     * Handles GET requests that open a stream of comments added under a post. Like the comment pages, the stream is
+     * only open to logged in users.
+     *
+     * @return a handler that keeps the connection open and pushes new comments as server-sent events
+     */
+    public HttpHandler streamComments() {
+        return exchange -> {
+            if (SessionHandler.getCurrentUser(exchange) == null) {
+                exchange.setStatusCode(401);
+                exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain");
+                exchange.getResponseSender().send("Please log in to view comments");
+                return;
+            }
+            streamHandler.handleRequest(exchange);
+        };
+    }
+
+    private void subscribe(ServerSentEventConnection connection, String lastEventId) {
+        String postId = connection.getParameter("postId");
+        if (postId == null) {
+            IoUtils.safeClose(connection);
+            return;
+        }
+        pendingEvents.put(connection, new AtomicInteger());
+        subscribers.computeIfAbsent(postId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        connection.setKeepAliveTime(KEEP_ALIVE_TIME);
+        connection.addCloseTask(closed -> unsubscribe(postId, closed));
+    }
+
+    private void unsubscribe(String postId, ServerSentEventConnection connection) {
+        pendingEvents.remove(connection);
+        subscribers.computeIfPresent(postId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    /**
+     * Pushes a comment to every connection subscribed to its post. Sends are queued on the IO thread of each
+     * connection, so this never blocks the caller. A connection that falls more than MAX_PENDING_EVENTS behind is
+     * closed instead of buffering without bound; the browser reconnects on its own.
+     *
+     * @param postId the id of the post the comment was added under
+     * @param comment the comment that was added
+     */
+    private void broadcast(UUID postId, Map<String, String> comment) {
+        Set<ServerSentEventConnection> connections = subscribers.get(postId.toString());
+        if (connections == null) {
+            return;
+        }
+        String data = new JsonPresenter(comment).present();
+        for (ServerSentEventConnection connection : connections) {
+            AtomicInteger pending = pendingEvents.get(connection);
+            if (pending == null || !connection.isOpen()) {
+                continue;
+            }
+            if (pending.incrementAndGet() > MAX_PENDING_EVENTS) {
+                IoUtils.safeClose(connection);
+                continue;
+            }
+            connection.send(data, "comment", null, new ServerSentEventConnection.EventCallback() {
+                @Override
+                public void done(ServerSentEventConnection connection, String data, String event, String id) {
+                    pending.decrementAndGet();
+                }
+
+                @Override
+                public void failed(ServerSentEventConnection connection, String data, String event, String id,
+                                   IOException e) {
+                    pending.decrementAndGet();
+                    IoUtils.safeClose(connection);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package handlers;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class DispatchHandler implements HttpHandler {
+    /**
+     * the executor used when requests are handled on the IO thread that read them
+     */
+    public static final String IO = "io";
+    /**
+     * the executor used when requests are handled on a fixed pool of worker threads
+     */
+    public static final String WORKER = "worker";
+    /**
+     * the executor used when each request is handled on a new virtual thread
+     */
+    public static final String VIRTUAL = "virtual";
+
+    /**
+     * the executor that requests are handled on, or null to handle them on the IO thread
+     */
+    private Executor executor;
+    /**
+     * a mapping of the start of a path to the executor used for requests whose path starts with it, where null means
+     * the IO thread. The longest matching start is used.
+     */
+    private Map<String, Executor> routes = new LinkedHashMap<>();
+    private HttpHandler next;
+
+    /**
+     * the number of requests waiting for a thread
+     */
+    private AtomicInteger queued = new AtomicInteger();
+    /**
+     * the number of requests being handled by a thread
+     */
+    private AtomicInteger active = new AtomicInteger();
+    private LongAdder dispatched = new LongAdder();
+    private LongAdder started = new LongAdder();
+    private LongAdder rejected = new LongAdder();
+    /**
+     * the number of requests handled where they were, because their route is kept on the IO thread or they were
+     * already off it
+     */
+    private LongAdder handledInPlace = new LongAdder();
+    /**
+     * the total and longest time requests waited for a thread in nanoseconds
+     */
+    private LongAdder waitNanos = new LongAdder();
+    private AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Constructor for a handler that moves requests off the IO threads before passing them on, so that a slow
+     * request does not hold up the other connections served by the same IO thread. Requests are put in blocking mode,
+     * so that reading their bodies and sending their responses stays on the thread they were dispatched to.
+     *
+     * @param executor the executor that requests are handled on, or null to handle them on the IO thread
+     */
+    public DispatchHandler(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor for requests
+     *
+     * @param kind IO, WORKER or VIRTUAL. Virtual threads are only available from Java 21, and a pool of worker
+     *             threads is used instead on older versions.
+     * @param workerThreads the number of worker threads
+     * @param queueCapacity the number of requests that can wait for a worker thread before new requests are turned
+     *                      away with 503 Service Unavailable
+     * @return an executor, or null if requests should be handled on the IO thread
+     */
+    public static Executor createExecutor(String kind, int workerThreads, int queueCapacity) {
+        if (IO.equals(kind)) {
+            return null;
+        }
+        if (VIRTUAL.equals(kind)) {
+            try {
+                // looked up by reflection so that the app still compiles and runs on Java 11
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Virtual threads are not available, using worker threads instead.");
+            }
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "request-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Sets the handler that requests are passed on to
+     *
+     * @param next the handler that requests are passed on to
+     * @return this handler
+     */
+    public DispatchHandler setNext(HttpHandler next) {
+        this.next = next;
+        return this;
+    }
+
+    /**
+     * Handles the requests whose path starts with a given start on another executor, such as keeping long-lived
+     * streams on the IO thread
+     *
+     * @param pathStart the start of the path of the requests
+     * @param executor the executor that the requests are handled on, or null to handle them on the IO thread
+     * @return this handler
+     */
+    public DispatchHandler route(String pathStart, Executor executor) {
+        routes.put(pathStart, executor);
+        return this;
+    }
+
+    @Override
+    /*
+     * @inheritdoc
+     */
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        Executor target = executorFor(exchange.getRelativePath());
+        if (target == null || !exchange.isInIoThread()) {
+            handledInPlace.increment();
+            next.handleRequest(exchange);
+            return;
+        }
+        long dispatchedAt = System.nanoTime();
+        queued.incrementAndGet();
+        dispatched.increment();
+        exchange.startBlocking();
+        exchange.dispatch(new CountingExecutor(target), dispatchedExchange -> {
+            long wait = System.nanoTime() - dispatchedAt;
+            queued.decrementAndGet();
+            started.increment();
+            waitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            active.incrementAndGet();
+            try {
+                next.handleRequest(dispatchedExchange);
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Returns statistics about dispatched requests
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        long count = started.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("queued", queued.get());
+        statistics.put("active", active.get());
+        statistics.put("dispatched", dispatched.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("handledInPlace", handledInPlace.sum());
+        statistics.put("averageWaitMillis", count == 0 ? 0 : waitNanos.sum() / 1e6 / count);
+        statistics.put("maxWaitMillis", maxWaitNanos.get() / 1e6);
+        if (executor instanceof ThreadPoolExecutor) {
+            statistics.put("workerQueue", ((ThreadPoolExecutor) executor).getQueue().size());
+        }
+        return statistics;
+    }
+
+    private Executor executorFor(String path) {
+        String longest = null;
+        for (String pathStart : routes.keySet()) {
+            if (path.startsWith(pathStart) && (longest == null || pathStart.length() > longest.length())) {
+                longest = pathStart;
+            }
+        }
+        return longest == null ? executor : routes.get(longest);
+    }
+
+    /**
+     * An executor that counts the requests it turns away. Undertow responds to them with 503 Service Unavailable.
+     */
+    private class CountingExecutor implements Executor {
+        private Executor executor;
+
+        private CountingExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                queued.decrementAndGet();
+                rejected.increment();
+                throw e;
+            }
+        }
+    }
+}
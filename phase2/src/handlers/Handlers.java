@@ -22,4 +22,14 @@ public class Handlers {
             System.out.println(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the user who made a request, as found by the SessionHandler
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @return the username of the user, or null if the user is not logged in
+     */
+    public String getCurrentUser(HttpServerExchange exchange) {
+        return SessionHandler.getCurrentUser(exchange);
+    }
+}
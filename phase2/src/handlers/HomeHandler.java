@@ -31,9 +31,9 @@ public class HomeHandler extends Handlers implements HttpHandler {
      */
     public void handleRequest(HttpServerExchange exchange) {
         exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/html");
-        String username = managerData.getCurrentUser();
+        String username = getCurrentUser(exchange);
 
-        if (managerData.getCurrentUser() == null) {
+        if (username == null) {
             exchange.getResponseSender().send("<meta " +
                     "http-equiv=\"refresh\" " +
                     "content=\"0.05; " +
@@ -44,13 +44,18 @@ public class HomeHandler extends Handlers implements HttpHandler {
             viewModel.addEndpoint("/logout", "logout");
             viewModel.addEndpoint("/deleteSelf",  "delete account");
             viewModel.addEndpoint("/addPost", "add post");
+            if (managerData.isAdmin(username)) {
+                viewModel.addEndpoint("/nearDuplicates", "view near-duplicate posts and comments");
+                viewModel.addEndpoint("/metrics", "view performance metrics");
+            }
 
-            viewModel.put("posts", postController.getPostsWrittenBy(managerData.getCurrentUser()));
-            viewModel.put("isAdmin", managerData.getCurrentUserRole());
-            viewModel.put("author", managerData.getCurrentUser());
-            viewModel.put("followers", accountController.getFollowers(username).size());
-            viewModel.put("following", accountController.getFollowing(username).size());
-            viewModel.put("username", managerData.getCurrentUser());
+            viewModel.put("posts", postController.getPostsWrittenBy(username));
+            viewModel.put("isAdmin", managerData.isAdmin(username));
+            viewModel.put("author", username);
+            viewModel.put("followers", accountController.countFollowers(username));
+            viewModel.put("following", accountController.countFollowing(username));
+            viewModel.put("username", username);
+            viewModel.put("recommendations", accountController.getRecommendations(username, 5));
 
             String templatePath = "src/templates/menu.jinja";
             present(exchange, viewModel.getContext(), templatePath);
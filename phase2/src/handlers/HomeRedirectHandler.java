@@ -7,6 +7,7 @@ import io.undertow.util.Headers;
 import io.undertow.util.QueryParameterUtils;
 import useCases.ManagerData;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Deque;
 import java.util.Map;
 
@@ -33,10 +34,11 @@ public class HomeRedirectHandler implements HttpHandler {
         exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
             @Override
             public void handle(HttpServerExchange exchange, String message) {
-                Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, "UTF_8");
+                Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
 
                 if(props.containsKey("SignOut")) {
-                    managerData.setCurrentUser(null);
+                    managerData.getSessionManager().invalidate(SessionHandler.getSessionToken(exchange));
+                    SessionHandler.endSession(exchange);
                     exchange.getResponseSender().send("<meta " +
                             "http-equiv=\"refresh\" " +
                             "content=\"0.05; " +
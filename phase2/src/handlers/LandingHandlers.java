@@ -5,10 +5,14 @@ import io.undertow.io.Receiver;
 import io.undertow.server.HttpServerExchange;
 import io.undertow.util.Headers;
 import io.undertow.util.QueryParameterUtils;
+import io.undertow.util.SameThreadExecutor;
 import useCases.ManagerData;
 import viewModel.ViewModel;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class LandingHandlers extends Handlers {
     private ManagerData managerData;
@@ -52,22 +56,26 @@ public class LandingHandlers extends Handlers {
         exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
             @Override
             public void handle(HttpServerExchange exchange, String message) {
-                Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, "UTF_8");
+                Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
                 String username = props.get("username").getFirst();
                 String password = props.get("password").getFirst();
-
-                String result = landingController.login(username, password);
-
-                if (result.equals("Success")) {
-                    managerData.setCurrentUser(username);
-                    exchange.getResponseSender().send("<meta " +
-                            "http-equiv=\"refresh\" " +
-                            "content=\"0.05; " +
-                            "url =\n /\" />\n");
-                }
-                else {
-                    login(exchange);
-                }
+                String clientAddress = exchange.getSourceAddress().getAddress().getHostAddress();
+
+                // the password is hashed on the credential threads, and the response is sent once it is done
+                exchange.dispatch(SameThreadExecutor.INSTANCE, () ->
+                        whenDone(exchange, landingController.loginAsync(username, password, clientAddress), result -> {
+                            if (result.equals("Success")) {
+                                if (startSession(exchange, username)) {
+                                    exchange.getResponseSender().send("<meta " +
+                                            "http-equiv=\"refresh\" " +
+                                            "content=\"0.05; " +
+                                            "url =\n /\" />\n");
+                                }
+                            }
+                            else {
+                                login(exchange);
+                            }
+                        }));
             }
         });
     }
@@ -105,24 +113,76 @@ public class LandingHandlers extends Handlers {
 
         exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
                 public void handle(HttpServerExchange exchange, String message) {
-                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, "UTF_8");
+                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
                     String username = props.get("username").getFirst();
                     String password = props.get("password").getFirst();
-
-                    String result = landingController.signUp(username, password);
-
-                    if (result.equals("Success")) {
-                        managerData.setCurrentUser(username);
-                        exchange.getResponseSender().send("<meta " +
-                                "http-equiv=\"refresh\" " +
-                                "content=\"0.05; " +
-                                "url =\n /\" />\n");
-                    }
-                    else {
-                        new LandingHandlers(managerData).signUp(exchange);
-                    }
+                    String clientAddress = exchange.getSourceAddress().getAddress().getHostAddress();
+
+                    exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+                        CompletableFuture<String> signUp =
+                                landingController.signUpAsync(username, password, clientAddress);
+                        whenDone(exchange, signUp, result -> {
+                            if (result.equals("Success")) {
+                                if (startSession(exchange, username)) {
+                                    exchange.getResponseSender().send("<meta " +
+                                            "http-equiv=\"refresh\" " +
+                                            "content=\"0.05; " +
+                                            "url =\n /\" />\n");
+                                }
+                            }
+                            else {
+                                new LandingHandlers(managerData).signUp(exchange);
+                            }
+                        });
+                    });
                 }
             }
         );
     }
+
+    /**
+     * Starts a session for a user who has logged in or signed up, or responds with 503 Service Unavailable if too
+     * many users are logged in
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @param username the username of the user
+     * @return whether the session was started
+     */
+    private boolean startSession(HttpServerExchange exchange, String username) {
+        String token = landingController.startSession(username);
+        if (token == null) {
+            exchange.setStatusCode(503);
+            exchange.getResponseSender().send("Too many users are logged in. Please try again later.");
+            return false;
+        }
+        SessionHandler.startSession(exchange, username, token);
+        return true;
+    }
+
+    /**
+     * Sends the response for the result of a login or sign up once it is done. If it fails, or sending the response
+     * throws, the exchange is ended with 500 Internal Server Error so that the client is not left waiting.
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @param future   the result of the login or sign up
+     * @param action   sends the response for the result
+     */
+    private void whenDone(HttpServerExchange exchange, CompletableFuture<String> future, Consumer<String> action) {
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                try {
+                    action.accept(result);
+                    return;
+                } catch (RuntimeException e) {
+                    System.out.println(e.getMessage());
+                }
+            } else {
+                System.out.println(error.getMessage());
+            }
+            if (!exchange.isResponseStarted()) {
+                exchange.setStatusCode(500);
+            }
+            exchange.endExchange();
+        });
+    }
 }
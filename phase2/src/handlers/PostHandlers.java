@@ -9,6 +9,7 @@ import io.undertow.util.QueryParameterUtils;
 import useCases.ManagerData;
 import viewModel.ViewModel;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class PostHandlers extends Handlers {
@@ -50,8 +51,8 @@ public class PostHandlers extends Handlers {
 
         exchange.getRequestReceiver().receiveFullString(new Receiver.FullStringCallback() {
                 public void handle(HttpServerExchange exchange, String message) {
-                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, "UTF_8");
-                    String author = managerData.getCurrentUser();
+                    Map<String, Deque<String>> props = QueryParameterUtils.parseQueryString(message, StandardCharsets.UTF_8.name());
+                    String author = getCurrentUser(exchange);
                     String title = cleanText(props.get("title").getFirst());
                     String content = cleanText(props.get("content").getFirst());
 
@@ -111,9 +112,9 @@ public class PostHandlers extends Handlers {
         ViewModel viewModel = new ViewModel();
         String username = props.get("username").getFirst();
 
-        if (!username.equals(managerData.getCurrentUser())) {
+        String requester = getCurrentUser(exchange);
+        if (!username.equals(requester)) {
             templatePath = "src/templates/profile.jinja";
-            String requester = managerData.getCurrentUser();
             List<Map<String, String>> posts = postController.getPostsWrittenBy(username);
 
             viewModel.put("posts", posts);
@@ -121,9 +122,10 @@ public class PostHandlers extends Handlers {
             viewModel.put("userIsAdmin", accountController.isAdmin(username));
             viewModel.put("userIsBanned", accountController.isBanned(username));
             viewModel.put("followStatus", accountController.isFollowing(requester, username));
-            viewModel.put("permissions", managerData.getCurrentUserRole());
-            viewModel.put("followers", accountController.getFollowers(username).size());
-            viewModel.put("following", accountController.getFollowing(username).size());
+            viewModel.put("followedBy", accountController.getFolloweesFollowing(requester, username));
+            viewModel.put("permissions", managerData.isAdmin(requester));
+            viewModel.put("followers", accountController.countFollowers(username));
+            viewModel.put("following", accountController.countFollowing(username));
         }
         else {
             templatePath = "src/templates/redirect.jinja";
@@ -144,16 +146,17 @@ public class PostHandlers extends Handlers {
         String templatePath = "src/templates/profile.jinja";
 
         ViewModel viewModel = new ViewModel();
-        String username = managerData.getCurrentUser();
+        String username = getCurrentUser(exchange);
         List<Map<String, String>> posts = postController.getPostsWrittenBy(username);
 
         viewModel.put("posts", posts);
 
-        viewModel.put("username", managerData.getCurrentUser());
-        viewModel.put("isAdmin", managerData.getCurrentUserRole());
+        viewModel.put("username", username);
+        viewModel.put("isAdmin", managerData.isAdmin(username));
 
-        viewModel.put("followers", accountController.getFollowers(username).size());
-        viewModel.put("following", accountController.getFollowing(username).size());
+        viewModel.put("followers", accountController.countFollowers(username));
+        viewModel.put("following", accountController.countFollowing(username));
+        viewModel.put("mutuals", accountController.getMutualFollows(username));
 
         present(exchange, viewModel.getContext(), templatePath);
     }
@@ -169,12 +172,12 @@ public class PostHandlers extends Handlers {
         String templatePath = "src/templates/feed.jinja";
 
         ViewModel viewModel = new ViewModel();
-        String username = managerData.getCurrentUser();
-        List<Map<String, String>> posts = postController.getFollowingPosts(managerData.getCurrentUser());
+        String username = getCurrentUser(exchange);
+        List<Map<String, String>> posts = postController.getFollowingPosts(username);
 
         viewModel.put("posts", posts);
-        viewModel.put("username", managerData.getCurrentUser());
-        viewModel.put("following", accountController.getFollowing(username).size());
+        viewModel.put("username", username);
+        viewModel.put("following", accountController.countFollowing(username));
 
         present(exchange, viewModel.getContext(), templatePath);
     }
@@ -0,0 +1,91 @@
+package handlers;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.Cookie;
+import io.undertow.server.handlers.CookieImpl;
+import io.undertow.util.AttachmentKey;
+import useCases.SessionManager;
+
+public class SessionHandler implements HttpHandler {
+    /**
+     * the name of the cookie that holds the session token
+     */
+    private static final String SESSION_COOKIE = "session";
+    private static final AttachmentKey<String> CURRENT_USER = AttachmentKey.create(String.class);
+
+    private SessionManager sessionManager;
+    private HttpHandler next;
+
+    /**
+     * Constructor for a handler that finds the user who made each request before passing it on
+     *
+     * @param sessionManager a use case that keeps track of logged in users
+     * @param next the handler that requests are passed on to
+     */
+    public SessionHandler(SessionManager sessionManager, HttpHandler next) {
+        this.sessionManager = sessionManager;
+        this.next = next;
+    }
+
+    @Override
+    /*
+     * @inheritdoc
+     */
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        String username = sessionManager.getUsername(getSessionToken(exchange));
+        if (username != null) {
+            exchange.putAttachment(CURRENT_USER, username);
+        }
+        next.handleRequest(exchange);
+    }
+
+    /**
+     * Returns the user who made a request
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @return the username of the user, or null if the request is not part of a session
+     */
+    public static String getCurrentUser(HttpServerExchange exchange) {
+        return exchange.getAttachment(CURRENT_USER);
+    }
+
+    /**
+     * Returns the session token sent with a request
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @return the session token, or null if none was sent
+     */
+    public static String getSessionToken(HttpServerExchange exchange) {
+        Cookie cookie = exchange.getRequestCookie(SESSION_COOKIE);
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    /**
+     * Sends a session token to the client and treats the rest of the request as part of the session
+     *
+     * @param exchange An HTTP server request/response exchange
+     * @param username the username of the user who logged in
+     * @param token the token of the new session
+     */
+    public static void startSession(HttpServerExchange exchange, String username, String token) {
+        exchange.setResponseCookie(new CookieImpl(SESSION_COOKIE, token)
+                .setPath("/")
+                .setHttpOnly(true)
+                .setSameSiteMode("Lax"));
+        exchange.putAttachment(CURRENT_USER, username);
+    }
+
+    /**
+     * Tells the client to forget its session token
+     *
+     * @param exchange An HTTP server request/response exchange
+     */
+    public static void endSession(HttpServerExchange exchange) {
+        exchange.setResponseCookie(new CookieImpl(SESSION_COOKIE, "")
+                .setPath("/")
+                .setHttpOnly(true)
+                .setMaxAge(0));
+        exchange.removeAttachment(CURRENT_USER);
+    }
+}
@@ -4,16 +4,54 @@ import exception.*;
 import gateway.*;
 
 import entities.Account;
+import entities.FollowGraph;
+import entities.IdList;
 
 import java.time.LocalDateTime;
-
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
 public class AccountManager {
+    /**
+     * the number of search results kept in the search cache
+     */
+    private static final int SEARCH_CACHE_CAPACITY = 256;
+    /**
+     * the largest number of accounts scored by a search whose query is too common for the username index to narrow
+     * down. These are scored by the account sorter, in parallel if it is a ParallelAccountSorter.
+     */
+    private static final int MAX_SCANNED_ACCOUNTS = 100000;
+    /**
+     * the largest number of usernames checked against a username pattern
+     */
+    private static final int MAX_PATTERN_CANDIDATES = 100000;
+    /**
+     * the largest number of follows deleted at a time when an account is deleted. The follows of an account with
+     * more than this are deleted in batches on a background thread.
+     */
+    private static final int DETACH_BATCH_SIZE = 10000;
+    /**
+     * the number of locks shared by the accounts
+     */
+    private static final int LOCK_STRIPES = 64;
+
     /**
      * a mapping of username of the account to the account entity
      */
-    private HashMap<String, Account> accountMap = new HashMap<>();
+    private ConcurrentHashMap<String, Account> accountMap = new ConcurrentHashMap<>();
+    /**
+     * locks held while an account is changed, so that a change that reads and then writes one or two accounts is
+     * not interleaved with another change to the same accounts. Reads do not take them.
+     */
+    private StripedLocks accountLocks = new StripedLocks(LOCK_STRIPES);
     /**
      * a gateway responsible for writing objects
      */
@@ -22,17 +60,123 @@ public class AccountManager {
      * a sorter that sorts accounts
      */
     private IAccountSorter accountSorter;
+    /**
+     * an index of usernames used to find candidates for a search
+     */
+    private IUsernameIndex usernameIndex;
+    /**
+     * a prefix tree of usernames used to autocomplete usernames
+     */
+    private UsernameTrie usernameTrie = new UsernameTrie();
+    /**
+     * a mapping of a search query and limit to the usernames it returned, cleared whenever an account is added or
+     * deleted
+     */
+    private LRUCache<String, List<String>> searchCache = new LRUCache<>(SEARCH_CACHE_CAPACITY);
+    /**
+     * the number of times the search cache has been cleared, so that a search that ran while accounts changed is not
+     * cached
+     */
+    private AtomicLong searchGeneration = new AtomicLong();
+    /**
+     * the graph of who follows whom, shared by every account
+     */
+    private FollowGraph followGraph;
+    /**
+     * a use case that recommends users to follow based on the follow graph
+     */
+    private FollowRecommender followRecommender;
+    /**
+     * a use case that hashes and verifies passwords
+     */
+    private CredentialService credentialService;
+    /**
+     * a thread that deletes the follows of deleted accounts in batches
+     */
+    private ThreadPoolExecutor detacher = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "follow-detacher");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
      * Constructor of a use case responsible for managing accounts.
      *
      * @param reader a gateway responsible for reading objects
      * @param writer a gateway responsible for writing objects
+     * @param accountSorter a sorter that sorts accounts
      */
     public AccountManager(IReader reader, IWriter writer, IAccountSorter accountSorter) {
+        this(reader, writer, accountSorter, new BKTree());
+    }
+
+    /**
+     * Constructor of a use case responsible for managing accounts.
+     *
+     * @param reader a gateway responsible for reading objects
+     * @param writer a gateway responsible for writing objects
+     * @param accountSorter a sorter that sorts accounts
+     * @param usernameIndex an index of usernames used to find candidates for a search
+     */
+    public AccountManager(IReader reader, IWriter writer, IAccountSorter accountSorter, IUsernameIndex usernameIndex) {
+        this(reader, writer, accountSorter, usernameIndex,
+                new CredentialService(new Pbkdf2PasswordHash(Pbkdf2PasswordHash.DEFAULT_ITERATIONS),
+                        Runtime.getRuntime().availableProcessors(), 256));
+    }
+
+    /**
+     * Constructor of a use case responsible for managing accounts.
+     *
+     * @param reader a gateway responsible for reading objects
+     * @param writer a gateway responsible for writing objects
+     * @param accountSorter a sorter that sorts accounts
+     * @param usernameIndex an index of usernames used to find candidates for a search
+     * @param credentialService a use case that hashes and verifies passwords
+     */
+    public AccountManager(IReader reader, IWriter writer, IAccountSorter accountSorter, IUsernameIndex usernameIndex,
+                          CredentialService credentialService) {
         this.writer = writer;
-        accountMap = reader.read(accountMap.getClass());
+        this.credentialService = credentialService;
+        // accounts are saved as a HashMap, which is copied into a concurrent map so that reads need no lock
+        @SuppressWarnings("unchecked")
+        HashMap<String, Account> savedAccounts = reader.read(HashMap.class);
+        if (savedAccounts == null) {
+            throw new IllegalStateException("The saved accounts could not be read.");
+        }
+        accountMap = new ConcurrentHashMap<>(savedAccounts);
         this.accountSorter = accountSorter;
+        this.usernameIndex = usernameIndex;
+        // accounts that were saved together already share one graph
+        followGraph = accountMap.isEmpty() ? new FollowGraph() : accountMap.values().iterator().next().getFollowGraph();
+        for (Map.Entry<String, Account> entry : accountMap.entrySet()) {
+            entry.getValue().attachTo(followGraph);
+            usernameIndex.add(entry.getKey());
+            usernameTrie.add(entry.getKey());
+        }
+        followRecommender = new FollowRecommender(followGraph);
+        detacher.allowCoreThreadTimeOut(true);
+        // finish deleting the follows of accounts deleted before the last save
+        if (followGraph.isDetaching()) {
+            detacher.execute(this::detachFollows);
+        }
+    }
+
+    /**
+     * Returns the login histories that accounts were saved with before login histories were stored apart from
+     * accounts. Each history is only returned once.
+     *
+     * @return a mapping of username to login times, oldest first, for accounts saved with a login
+     */
+    public Map<String, List<LocalDateTime>> takeLegacyHistories() {
+        Map<String, List<LocalDateTime>> histories = new HashMap<>();
+        for (Map.Entry<String, Account> entry : accountMap.entrySet()) {
+            List<LocalDateTime> history = entry.getValue().takeLegacyHistory();
+            if (!history.isEmpty()) {
+                histories.put(entry.getKey(), history);
+            }
+        }
+        return histories;
     }
 
     /**
@@ -42,7 +186,7 @@ public class AccountManager {
      * @return whether a username is already taken by another user.
      */
     public boolean containsUser(String username) {
-        return accountMap.containsKey(username);
+        return username != null && accountMap.containsKey(username);
     }
 
     /**
@@ -72,7 +216,7 @@ public class AccountManager {
      * @return the account of the user with a given username.
      */
     public Account getUser(String username) {
-        return accountMap.get(username);
+        return username == null ? null : accountMap.get(username);
     }
 
     /**
@@ -83,6 +227,11 @@ public class AccountManager {
      */
     public void addUser(String username, Account account) {
         accountMap.put(username, account);
+        account.attachTo(followGraph);
+        usernameIndex.add(username);
+        usernameTrie.add(username);
+        searchGeneration.incrementAndGet();
+        searchCache.clear();
     }
 
     /**
@@ -93,31 +242,55 @@ public class AccountManager {
      * @throws UserIsAdminException      if the user associated with the provided username is an admin.
      */
     public void deleteUser(String username) throws UsernameNotFoundException, UserIsAdminException {
-        if (!containsUser(username)) {
-            throw new UsernameNotFoundException("Unsuccessful deletion, target user does not exist");
-        } else if (getUser(username).getIsAdmin()) {
-            throw new UserIsAdminException("Unsuccessful deletion, target user is an admin");
-        } else {
-            deleteSelf(username);
+        List<ReentrantLock> locks = accountLocks.lock(username);
+        try {
+            if (!containsUser(username)) {
+                throw new UsernameNotFoundException("Unsuccessful deletion, target user does not exist");
+            } else if (getUser(username).getIsAdmin()) {
+                throw new UserIsAdminException("Unsuccessful deletion, target user is an admin");
+            } else {
+                deleteSelf(username);
+            }
+        } finally {
+            accountLocks.unlock(locks);
         }
     }
 
     /**
-     * Deletes the account with the provided username.
+     * Deletes the account with the provided username. The account's follows are deleted with it, except for
+     * accounts with more than DETACH_BATCH_SIZE follows, whose remaining follows are deleted in the background.
      */
     public void deleteSelf(String username){
+        List<ReentrantLock> locks = accountLocks.lock(username);
         try {
-            for (String followee : getUser(username).getFollowees()) {
-                unfollow(username, followee);
-            }
-            for (String follower : getUser(username).getFollowers()) {
-                unfollow(follower, username);
+            followRecommender.removed(username);
+            accountMap.remove(username);
+            if (!followGraph.remove(username, DETACH_BATCH_SIZE)) {
+                detacher.execute(this::detachFollows);
             }
+            usernameIndex.remove(username);
+            usernameTrie.remove(username);
+            searchGeneration.incrementAndGet();
+            searchCache.clear();
+        } finally {
+            accountLocks.unlock(locks);
         }
-        catch (UsernameNotFoundException | UserNotFollowedException e) {
-            System.out.println(e.getMessage());
+    }
+
+    /**
+     * Returns whether the follows of some deleted accounts are still being deleted
+     *
+     * @return whether the follows of some deleted accounts are still being deleted
+     */
+    public boolean isDetachingFollows() {
+        return followGraph.isDetaching();
+    }
+
+    private void detachFollows() {
+        while (!followGraph.detach(DETACH_BATCH_SIZE)) {
+            // let requests waiting on the graph take the lock between batches
+            Thread.yield();
         }
-        accountMap.remove(username);
     }
 
     /**
@@ -125,32 +298,73 @@ public class AccountManager {
      *
      * @param username                    a string representing a username of a user.
      * @param password                    a string representing the password of a user.
+     * @return                            a new hash of the password to be stored with rehashPassword if the
+     *                                    account's hash was made with older settings, or null otherwise
      * @throws IncorrectPasswordException if the provided password does not match the password of the account
      *                                    with the given username
      * @throws UsernameNotFoundException  if the provided username does not exist.
      * @throws AccountBannedException     if the account is currently being banned
      */
-    public void login(String username, String password) throws
+    public String login(String username, String password) throws
             IncorrectPasswordException,
             UsernameNotFoundException,
             AccountBannedException {
-        if (accountMap.containsKey(username)) {
-            IHash hasher = new PasswordHash();
-            String hashedPassword = hasher.hash(password);
-            Account account = accountMap.get(username);
+        Account account = getUser(username);
+        if (account != null) {
             if (account.getIsBanned()) {
                 throw new AccountBannedException("Your account is currently banned and cannot be accessed. \n");
             }
-            if (hashedPassword.equals(account.getHashedPassword())) {
-                account.updateHistory();
-            } else {
+            String hashedPassword = account.getHashedPassword();
+            if (!credentialService.verify(password, hashedPassword)) {
                 throw new IncorrectPasswordException("The provided password is incorrect.");
             }
+            // the password is known now, so a hash made with older settings can be replaced
+            return credentialService.needsRehash(hashedPassword) ? credentialService.hash(password) : null;
         } else {
             throw new UsernameNotFoundException("The provided username does not exist.");
         }
     }
 
+    /**
+     * Checks login credentials like login, but hashes the password on the threads of the credential service
+     * instead of the calling thread.
+     *
+     * @param username a string representing a username of a user.
+     * @param password a string representing the password of a user.
+     * @return         a future completed with the result of login when the credentials are found to be valid, or
+     *                 completed exceptionally with a CompletionException caused by the exception login would throw,
+     *                 or with a RejectedExecutionException if too many passwords are waiting to be hashed
+     */
+    public CompletableFuture<String> loginAsync(String username, String password) {
+        return credentialService.submit(() -> {
+            try {
+                return login(username, password);
+            } catch (IncorrectPasswordException | UsernameNotFoundException | AccountBannedException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Replaces the hashed password of an account whose hash was made with older settings. The new hash is made by
+     * login, so that only storing it is left to the write.
+     *
+     * @param username       a string representing a username of a user.
+     * @param hashedPassword a hash of the password of the account made with the current settings
+     */
+    public void rehashPassword(String username, String hashedPassword) {
+        List<ReentrantLock> locks = accountLocks.lock(username);
+        try {
+            Account account = getUser(username);
+            // the account may have been deleted, or given a current hash, since the login
+            if (account != null && credentialService.needsRehash(account.getHashedPassword())) {
+                account.setHashedPassword(hashedPassword);
+            }
+        } finally {
+            accountLocks.unlock(locks);
+        }
+    }
+
     /**
      * Ban an account based on a username
      *
@@ -159,12 +373,17 @@ public class AccountManager {
      * @throws UserIsAdminException       if the account with the provided username is an admin.
      */
     public boolean ban(String username) throws UsernameNotFoundException, UserIsAdminException {
-        if (!containsUser(username)) {
-            throw new UsernameNotFoundException("Unsuccessful ban, target user does not exist.");
-        } else if (getUser(username).getIsAdmin()) {
-            throw new UserIsAdminException("Unsuccessful ban, target user is an admin.");
-        } else {
-            return getUser(username).ban();
+        List<ReentrantLock> locks = accountLocks.lock(username);
+        try {
+            if (!containsUser(username)) {
+                throw new UsernameNotFoundException("Unsuccessful ban, target user does not exist.");
+            } else if (getUser(username).getIsAdmin()) {
+                throw new UserIsAdminException("Unsuccessful ban, target user is an admin.");
+            } else {
+                return getUser(username).ban();
+            }
+        } finally {
+            accountLocks.unlock(locks);
         }
     }
 
@@ -176,13 +395,112 @@ public class AccountManager {
      * @throws UserIsAdminException       if the account with the provided username is an admin.
      */
     public boolean unban(String username) throws UsernameNotFoundException, UserIsAdminException {
-        if (!containsUser(username)) {
-            throw new UsernameNotFoundException("Unsuccessful unban, target account does not exist.");
-        } else if (getUser(username).getIsAdmin()) {
-            throw new UserIsAdminException("Unsuccessful unban, target account is an admin.");
-        } else {
-            return getUser(username).unban();
+        List<ReentrantLock> locks = accountLocks.lock(username);
+        try {
+            if (!containsUser(username)) {
+                throw new UsernameNotFoundException("Unsuccessful unban, target account does not exist.");
+            } else if (getUser(username).getIsAdmin()) {
+                throw new UserIsAdminException("Unsuccessful unban, target account is an admin.");
+            } else {
+                return getUser(username).unban();
+            }
+        } finally {
+            accountLocks.unlock(locks);
+        }
+    }
+
+    /**
+     * Applies a moderation action to many accounts as one change. Each username is moderated once, in the order
+     * given, and an account that cannot be moderated does not stop the others. Accounts with many follows are
+     * detached from the follow graph in the background, as with deleteSelf.
+     *
+     * @param action the action to be applied
+     * @param usernames the usernames of the accounts to be moderated
+     * @return a mapping of each username to "Success" or the reason it could not be moderated
+     */
+    public Map<String, String> moderate(ModerationAction action, Collection<String> usernames) {
+        Map<String, String> results = new LinkedHashMap<>();
+        for (String username : usernames) {
+            if (results.containsKey(username)) {
+                continue;
+            }
+            String result = "Success";
+            try {
+                switch (action) {
+                    case BAN:
+                        if (!ban(username)) {
+                            result = "Unsuccessful ban, target user is already banned.";
+                        }
+                        break;
+                    case UNBAN:
+                        if (!unban(username)) {
+                            result = "Unsuccessful unban, target account is not banned.";
+                        }
+                        break;
+                    case PROMOTE:
+                        promoteToAdmin(username);
+                        break;
+                    case DELETE:
+                        deleteUser(username);
+                        break;
+                }
+            } catch (UsernameNotFoundException | UserIsAdminException e) {
+                result = e.getMessage();
+            }
+            results.put(username, result);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the usernames that match a pattern, where * matches any run of characters and ? matches any one
+     * character. Only usernames starting with the part of the pattern before its first wildcard are checked, so the
+     * pattern must not start with a wildcard, and at most MAX_PATTERN_CANDIDATES of them are checked.
+     *
+     * @param pattern a username pattern
+     * @param limit   the maximum number of usernames to be returned
+     * @return at most limit matching usernames, in alphabetical order
+     * @throws InvalidPatternException if the pattern starts with a wildcard, or more than MAX_PATTERN_CANDIDATES
+     *                                 usernames start with the part before its first wildcard
+     */
+    public List<String> findUsernames(String pattern, int limit) throws InvalidPatternException {
+        StringBuilder regex = new StringBuilder();
+        int prefixLength = -1;
+        int start = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                if (prefixLength == -1) {
+                    prefixLength = i;
+                }
+                regex.append(Pattern.quote(pattern.substring(start, i))).append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (prefixLength == -1) {
+            return containsUser(pattern) && limit > 0 ? List.of(pattern) : List.of();
+        } else if (prefixLength == 0) {
+            throw new InvalidPatternException("The pattern must not start with a wildcard.");
+        }
+        regex.append(Pattern.quote(pattern.substring(start)));
+        Pattern compiled = Pattern.compile(regex.toString());
+        // one more candidate than can be checked is fetched to find out whether there are too many
+        String prefix = pattern.substring(0, prefixLength);
+        List<String> candidates = usernameTrie.startingWith(prefix, MAX_PATTERN_CANDIDATES + 1);
+        if (candidates.size() > MAX_PATTERN_CANDIDATES) {
+            throw new InvalidPatternException("Too many usernames start with \"" + prefix
+                    + "\". Please give a longer start before the first wildcard.");
+        }
+        List<String> usernames = new ArrayList<>();
+        for (String username : candidates) {
+            if (usernames.size() >= limit) {
+                break;
+            }
+            if (compiled.matcher(username).matches()) {
+                usernames.add(username);
+            }
         }
+        return usernames;
     }
 
     /**
@@ -199,14 +517,42 @@ public class AccountManager {
         } else if (invalidUsernames.contains(username)) {
             throw new InvalidUsernameException("The provided username is invalid. Please enter another username.");
         } else {
-            IHash hasher = new PasswordHash();
-            String hashedPassword = hasher.hash(password);
-            Account account = new Account(username, hashedPassword);
-            account.updateHistory();
-            addUser(username, account);
+            String hashedPassword = credentialService.hash(password);
+            List<ReentrantLock> locks = accountLocks.lock(username);
+            try {
+                // the username may have been taken while the password was being hashed
+                if (containsUser(username)) {
+                    throw new UsernameExistsException(
+                            "The provided username already exists. Please enter another username.");
+                }
+                addUser(username, new Account(username, hashedPassword));
+            } finally {
+                accountLocks.unlock(locks);
+            }
         }
     }
 
+    /**
+     * Creates a new account like signUp, but hashes the password on the threads of the credential service instead
+     * of the calling thread.
+     *
+     * @param username a string representing a username of a user.
+     * @param password a string representing the password of a user.
+     * @return         a future that completes when the account is created, or completes exceptionally with a
+     *                 CompletionException caused by the exception signUp would throw, or with a
+     *                 RejectedExecutionException if too many passwords are waiting to be hashed
+     */
+    public CompletableFuture<Void> signUpAsync(String username, String password) {
+        return credentialService.submit(() -> {
+            try {
+                signUp(username, password);
+                return null;
+            } catch (UsernameExistsException | InvalidUsernameException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
     /**
      * Creates a new admin based on provided credentials
      *
@@ -218,11 +564,19 @@ public class AccountManager {
         if (containsUser(username)) {
             throw new UsernameExistsException("The provided username already exists. Please enter another username.");
         } else {
-            IHash hasher = new PasswordHash();
-            String hashedPassword = hasher.hash(password);
+            String hashedPassword = credentialService.hash(password);
             Account account = new Account(username, hashedPassword);
             account.promoteToAdmin();
-            addUser(username, account);
+            List<ReentrantLock> locks = accountLocks.lock(username);
+            try {
+                if (containsUser(username)) {
+                    throw new UsernameExistsException(
+                            "The provided username already exists. Please enter another username.");
+                }
+                addUser(username, account);
+            } finally {
+                accountLocks.unlock(locks);
+            }
         }
     }
 
@@ -234,25 +588,20 @@ public class AccountManager {
      * @throws UserIsAdminException       if the account with the provided username is an admin.
      */
     public void promoteToAdmin(String username) throws UsernameNotFoundException, UserIsAdminException {
-        if (!(containsUser(username))) {
-            throw new UsernameNotFoundException("Unsuccessful, the target user does not exist.");
-        } else if(getUser(username).getIsAdmin()) {
-            throw new UserIsAdminException("Unsuccessful, the target user is already an admin.");
-        } else {
-            getUser(username).promoteToAdmin();
+        List<ReentrantLock> locks = accountLocks.lock(username);
+        try {
+            if (!(containsUser(username))) {
+                throw new UsernameNotFoundException("Unsuccessful, the target user does not exist.");
+            } else if(getUser(username).getIsAdmin()) {
+                throw new UserIsAdminException("Unsuccessful, the target user is already an admin.");
+            } else {
+                getUser(username).promoteToAdmin();
+            }
+        } finally {
+            accountLocks.unlock(locks);
         }
     }
 
-    /**
-     * Return the login and sign up history of the user.
-     *
-     * @param username a string representing a username of a user.
-     * @return a list of dates where the user logged in or signed up.
-     */
-    public List<LocalDateTime> getUserHistory(String username) {
-        return accountMap.get(username).getHistory();
-    }
-
     /**
      * Make the follower follow the followee.
      *
@@ -262,17 +611,23 @@ public class AccountManager {
      * @throws UserFollowedException     if the follower already follows the followee
      */
     public void follow(String follower, String followee) throws UsernameNotFoundException, UserFollowedException {
-        if (!containsUser(follower)) {
-            throw new UsernameNotFoundException("Unsuccessful, " + follower + " does not exist.");
-        } else if (!containsUser(followee)) {
-            throw new UsernameNotFoundException("Unsuccessful, " + followee + " does not exist.");
-        } else if (getFolloweesOf(follower).contains(followee)) {
-            throw new UserFollowedException("Unsuccessful, " + followee + " is already followed");
+        List<ReentrantLock> locks = accountLocks.lock(follower, followee);
+        try {
+            if (!containsUser(follower)) {
+                throw new UsernameNotFoundException("Unsuccessful, " + follower + " does not exist.");
+            } else if (!containsUser(followee)) {
+                throw new UsernameNotFoundException("Unsuccessful, " + followee + " does not exist.");
+            } else if (followGraph.isFollowing(follower, followee)) {
+                throw new UserFollowedException("Unsuccessful, " + followee + " is already followed");
+            }
+            Account followerAccount = accountMap.get(follower);
+            Account followeeAccount = accountMap.get(followee);
+            followerAccount.follow(followee);
+            followeeAccount.addFollower(follower);
+            followRecommender.followed(follower, followee);
+        } finally {
+            accountLocks.unlock(locks);
         }
-        Account followerAccount = accountMap.get(follower);
-        Account followeeAccount = accountMap.get(followee);
-        followerAccount.follow(followee);
-        followeeAccount.addFollower(follower);
     }
 
     /**
@@ -284,17 +639,93 @@ public class AccountManager {
      * @throws UserNotFollowedException  if the follower does not follow the followee
      */
     public void unfollow(String follower, String followee) throws UsernameNotFoundException, UserNotFollowedException {
-        if (!containsUser(follower)) {
-            throw new UsernameNotFoundException("Unsuccessful, " + follower + " does not exist.");
-        } else if (!containsUser(followee)) {
-            throw new UsernameNotFoundException("Unsuccessful, " + followee + " does not exist.");
-        } else if (!getFollowersOf(followee).contains(follower)) {
-            throw new UserNotFollowedException("Unsuccessful, " + followee + " is already not followed");
+        List<ReentrantLock> locks = accountLocks.lock(follower, followee);
+        try {
+            if (!containsUser(follower)) {
+                throw new UsernameNotFoundException("Unsuccessful, " + follower + " does not exist.");
+            } else if (!containsUser(followee)) {
+                throw new UsernameNotFoundException("Unsuccessful, " + followee + " does not exist.");
+            } else if (!followGraph.isFollowing(follower, followee)) {
+                throw new UserNotFollowedException("Unsuccessful, " + followee + " is already not followed");
+            }
+            Account followerAccount = accountMap.get(follower);
+            Account followeeAccount = accountMap.get(followee);
+            followerAccount.unfollow(followee);
+            followeeAccount.removeFollower(follower);
+            followRecommender.unfollowed(follower, followee);
+        } finally {
+            accountLocks.unlock(locks);
+        }
+    }
+
+    /**
+     * Returns whether a user follows another user
+     *
+     * @param follower the username of the follower
+     * @param followee the username of the followee
+     * @return whether follower follows followee
+     */
+    public boolean isFollowing(String follower, String followee) {
+        return followGraph.isFollowing(follower, followee);
+    }
+
+    /**
+     * Returns the number of followers of an account in constant time
+     *
+     * @param username the username of the account
+     * @return the number of followers of the account, or 0 if it does not exist
+     */
+    public int countFollowersOf(String username) {
+        return followGraph.countFollowers(username);
+    }
+
+    /**
+     * Returns the number of followees of an account in constant time
+     *
+     * @param username the username of the account
+     * @return the number of followees of the account, or 0 if it does not exist
+     */
+    public int countFolloweesOf(String username) {
+        return followGraph.countFollowees(username);
+    }
+
+    /**
+     * Returns the accounts followed by a viewer that follow a target account, such as for showing "followed by X, Y
+     * and 12 others you follow" on the target's profile
+     *
+     * @param viewer     the username of the account viewing the target
+     * @param target     the username of the target account
+     * @param sampleSize the maximum number of usernames to be included in the result
+     * @return           the number of the viewer's followees that follow the target, and a few of their usernames
+     */
+    public FollowOverlap getFolloweesFollowing(String viewer, String target, int sampleSize) {
+        int viewerId = followGraph.getId(viewer);
+        int targetId = followGraph.getId(target);
+        List<String> sample = new ArrayList<>();
+        if (viewerId == -1 || targetId == -1) {
+            return new FollowOverlap(0, sample);
+        }
+        int count = followGraph.intersect(followGraph.getFolloweeIds(viewerId), followGraph.getFollowerIds(targetId),
+                sample, sampleSize);
+        return new FollowOverlap(count, sample);
+    }
+
+    /**
+     * Returns the accounts that follow an account and are followed back by it
+     *
+     * @param username   the username of the account
+     * @param sampleSize the maximum number of usernames to be included in the result
+     * @return           the number of mutual follows of the account, and a few of their usernames
+     */
+    public FollowOverlap getMutualFollows(String username, int sampleSize) {
+        int id = followGraph.getId(username);
+        List<String> sample = new ArrayList<>();
+        if (id == -1) {
+            return new FollowOverlap(0, sample);
         }
-        Account followerAccount = accountMap.get(follower);
-        Account followeeAccount = accountMap.get(followee);
-        followerAccount.unfollow(followee);
-        followeeAccount.removeFollower(follower);
+        int count = followGraph.intersect(followGraph.getFolloweeIds(id), followGraph.getFollowerIds(id),
+                sample, sampleSize);
+        return new FollowOverlap(count, sample);
     }
 
     /**
@@ -303,7 +734,7 @@ public class AccountManager {
      * @param username the username of the account whose follower list will be returned
      * @return         a set of followers of the account with the provided username
      */
-    public HashSet<String> getFollowersOf(String username) {
+    public Set<String> getFollowersOf(String username) {
         return getUser(username).getFollowers();
     }
 
@@ -314,12 +745,8 @@ public class AccountManager {
      * @return         a list of followers of the account with the Account entity
      */
     public List<Account> getFollowerListOf(String username) {
-        HashSet<String> followers = getFollowersOf(username);
-        ArrayList<Account> accounts = new ArrayList<>();
-        for (String user: followers) {
-            accounts.add(getUser(user));
-        }
-        return accounts;
+        int id = followGraph.getId(username);
+        return accountsWithIds(id == -1 ? IdList.EMPTY : followGraph.getFollowerIds(id));
     }
 
     /**
@@ -329,44 +756,197 @@ public class AccountManager {
      * @return         a list of followers of the account with the Account entity
      */
     public List<Account> getFolloweeListOf(String username) {
-        HashSet<String> followers = getFolloweesOf(username);
-        ArrayList<Account> accounts = new ArrayList<>();
-        for (String user: followers) {
-            accounts.add(getUser(user));
+        int id = followGraph.getId(username);
+        return accountsWithIds(id == -1 ? IdList.EMPTY : followGraph.getFolloweeIds(id));
+    }
+
+    /**
+     * Returns one page of the followers of an account. Followers are ordered by the id the follow graph gives them,
+     * which is never given to another account, so a cursor stays valid while followers are added or removed.
+     *
+     * @param username the username of the account whose followers will be returned
+     * @param cursor   the cursor returned with the previous page, or -1 for the first page
+     * @param limit    the maximum number of followers on the page
+     * @return         a page of followers of the account with the cursor of the next page
+     */
+    public AccountPage getFollowerPageOf(String username, int cursor, int limit) {
+        int id = followGraph.getId(username);
+        return page(id == -1 ? IdList.EMPTY : followGraph.getFollowerIds(id), cursor, limit);
+    }
+
+    /**
+     * Returns one page of the followees of an account. Followees are ordered by the id the follow graph gives them,
+     * which is never given to another account, so a cursor stays valid while followees are added or removed.
+     *
+     * @param username the username of the account whose followees will be returned
+     * @param cursor   the cursor returned with the previous page, or -1 for the first page
+     * @param limit    the maximum number of followees on the page
+     * @return         a page of followees of the account with the cursor of the next page
+     */
+    public AccountPage getFolloweePageOf(String username, int cursor, int limit) {
+        int id = followGraph.getId(username);
+        return page(id == -1 ? IdList.EMPTY : followGraph.getFolloweeIds(id), cursor, limit);
+    }
+
+    private List<Account> accountsWithIds(IdList ids) {
+        List<Account> accounts = new ArrayList<>(ids.size());
+        for (PrimitiveIterator.OfInt iterator = ids.iterator(); iterator.hasNext(); ) {
+            Account account = accountWithId(iterator.nextInt());
+            if (account != null) {
+                accounts.add(account);
+            }
         }
         return accounts;
     }
 
+    /**
+     * Returns the account with an id in the follow graph, or null if the account has been deleted. A deleted
+     * account stays in the follow lists of others until its follows are detached, and its username may have been
+     * taken by a new account in the meantime.
+     */
+    private Account accountWithId(int id) {
+        String username = followGraph.getUsername(id);
+        Account account = username == null ? null : accountMap.get(username);
+        return account != null && followGraph.getId(account.getUsername()) == id ? account : null;
+    }
+
+    private AccountPage page(IdList ids, int cursor, int limit) {
+        // the cursor is the id of the last account on the previous page
+        int start = 0;
+        if (cursor >= 0) {
+            int position = ids.indexOf(cursor);
+            start = position >= 0 ? position + 1 : -position - 1;
+        }
+        int end = (int) Math.min(ids.size(), (long) start + Math.max(limit, 0));
+        List<Account> accounts = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            Account account = accountWithId(ids.get(i));
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return new AccountPage(accounts, end < ids.size() && end > start ? ids.get(end - 1) : -1);
+    }
+
     /**
      * Returns a set of followees of an account
      *
      * @param username the username of the account whose followee list will be returned
      * @return         a set of followees of the account with the provided username
      */
-    public HashSet<String> getFolloweesOf(String username) {
+    public Set<String> getFolloweesOf(String username) {
         return getUser(username).getFollowees();
     }
 
+    /**
+     * Returns accounts the user may want to follow: the accounts followed by the most of the user's followees
+     *
+     * @param username the username of the account recommendations are made for
+     * @param limit    the maximum number of accounts to be returned
+     * @return         a mapping of recommended usernames to the number of the user's followees that follow them,
+     *                 highest number first
+     */
+    public Map<String, Integer> recommendFollowees(String username, int limit) {
+        return followRecommender.recommend(username, limit);
+    }
+
     /**
      * Saves the current data.
      */
     public void save() {
-        writer.write(accountMap);
+        writer.write(new HashMap<>(accountMap));
     }
 
     /**
-     * Searches all accounts based on a similar uesrname and returns top-limit closest usernames
+     * Searches all accounts based on a similar username and returns top-limit closest usernames. Results are cached by
+     * the search query with surrounding whitespace removed and the limit.
      *
-     * @param targetUsername the username of the account whose followee list will be returned
+     * @param targetUsername the username of the search query
      * @param limit the number of users to be returned
      * @return a list of accounts whose username matches the search query
      */
     public List<Account> search(String targetUsername, int limit) {
+        String query = targetUsername.trim();
+        long generation = searchGeneration.get();
+        // the generation is part of the key, so a search cached just as the cache was cleared is never returned
+        String key = generation + ":" + limit + ":" + query;
+        List<String> usernames = searchCache.get(key);
+        if (usernames == null) {
+            usernames = new ArrayList<>();
+            for (Account account : rank(query, limit)) {
+                usernames.add(account.getUsername());
+            }
+            if (searchGeneration.get() == generation) {
+                searchCache.put(key, Collections.unmodifiableList(usernames));
+            }
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (String username : usernames) {
+            Account account = accountMap.get(username);
+            // the account may have been deleted since the search was cached
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
+    private List<Account> rank(String targetUsername, int limit) {
         ArrayList<Account> accounts = new ArrayList<>();
-        for (Account account : accountMap.values()) {
-            accounts.add(account);
+        List<String> candidates = usernameIndex.search(targetUsername, limit);
+        if (candidates == null) {
+            // the query is too common for the index, so up to MAX_SCANNED_ACCOUNTS accounts are scored instead
+            for (Account account : accountMap.values()) {
+                if (accounts.size() >= MAX_SCANNED_ACCOUNTS) {
+                    break;
+                }
+                accounts.add(account);
+            }
+            candidates = Collections.emptyList();
         }
+        for (String username : candidates) {
+            Account account = accountMap.get(username);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        // only the candidates found by the index are scored, even if there are fewer than limit, so that a search
+        // never costs a scan of every account
         accountSorter.sort(accounts, targetUsername, limit);
-        return accounts.subList(0, Math.min(limit + 1, accounts.size()));
+        return accounts.subList(0, Math.min(limit, accounts.size()));
+    }
+
+    /**
+     * Returns statistics about the search cache
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getSearchCacheStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", searchCache.size());
+        statistics.put("hits", searchCache.getHits());
+        statistics.put("misses", searchCache.getMisses());
+        statistics.put("hitRatio", searchCache.getHitRatio());
+        return statistics;
+    }
+
+    /**
+     * Returns statistics about password hashing
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getCredentialStatistics() {
+        return credentialService.getStatistics();
+    }
+
+    /**
+     * Returns usernames that start with a prefix, in alphabetical order
+     *
+     * @param prefix the start of a username
+     * @param limit the number of usernames to be returned
+     * @return a list of at most limit usernames that start with prefix
+     */
+    public List<String> autocomplete(String prefix, int limit) {
+        return usernameTrie.startingWith(prefix, limit);
     }
 }
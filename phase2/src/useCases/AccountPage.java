@@ -0,0 +1,45 @@
+package useCases;
+
+import entities.Account;
+
+import java.util.List;
+
+public class AccountPage {
+    /**
+     * the accounts on this page
+     */
+    private List<Account> accounts;
+    /**
+     * the cursor of the next page, or -1 if this is the last page
+     */
+    private int nextCursor;
+
+    /**
+     * Constructor of one page of a list of accounts
+     *
+     * @param accounts the accounts on this page
+     * @param nextCursor the cursor of the next page, or -1 if this is the last page
+     */
+    public AccountPage(List<Account> accounts, int nextCursor) {
+        this.accounts = accounts;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the accounts on this page
+     *
+     * @return the accounts on this page
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Returns the cursor to be passed to get the next page
+     *
+     * @return the cursor of the next page, or -1 if this is the last page
+     */
+    public int getNextCursor() {
+        return nextCursor;
+    }
+}
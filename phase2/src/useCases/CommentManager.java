@@ -2,18 +2,37 @@ package useCases;
 
 import entities.Comment;
 import gateway.ICommentSorter;
+import gateway.INearDuplicateIndex;
 import gateway.IReader;
 import gateway.IWriter;
+import gateway.MinHashIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class CommentManager {
+    /**
+     * the maximum number of characters allowed in a comment added through a batch
+     */
+    public static final int MAX_COMMENT_LENGTH = 5000;
     /**
      * a mapping of id of the comment to the comment entity
      */
-    private HashMap<UUID, Comment> comments = new HashMap<>();
+    private ConcurrentHashMap<UUID, Comment> comments = new ConcurrentHashMap<>();
+    /**
+     * a mapping of username to the ids of the comments written by that user
+     */
+    private ConcurrentHashMap<String, Set<UUID>> commentsByAuthor = new ConcurrentHashMap<>();
+    /**
+     * an index of the contents of comments used to find near-duplicate comments
+     */
+    private INearDuplicateIndex duplicateIndex = new MinHashIndex();
     /**
      * a gateway responsible for writing objects
      */
@@ -22,6 +41,10 @@ public class CommentManager {
      * a strategy for sorting comments by a particular criterion
      */
     private ICommentSorter commentSorter;
+    /**
+     * observers notified whenever a comment is added
+     */
+    private List<ICommentObserver> observers = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor of a use case responsible for managing comments.
@@ -31,8 +54,33 @@ public class CommentManager {
      */
     public CommentManager(IReader reader, IWriter writer, ICommentSorter commentSorter) {
         this.writer = writer;
-        comments = reader.read(comments.getClass());
+        // comments are saved as a HashMap, which is copied into a concurrent map so that reads need no lock
+        @SuppressWarnings("unchecked")
+        HashMap<UUID, Comment> savedComments = reader.read(HashMap.class);
+        comments = new ConcurrentHashMap<>(savedComments);
         this.commentSorter = commentSorter;
+        for (Comment comment : comments.values()) {
+            index(comment);
+        }
+    }
+
+    private void index(Comment comment) {
+        // the set is added to and removed from atomically, so that an id is never added to a set just as the empty
+        // set is removed
+        commentsByAuthor.compute(comment.getAuthor(), (author, ids) -> {
+            Set<UUID> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(comment.getId());
+            return result;
+        });
+        duplicateIndex.add(comment.getId(), comment.getContent());
+    }
+
+    private void unindex(Comment comment) {
+        duplicateIndex.remove(comment.getId());
+        commentsByAuthor.computeIfPresent(comment.getAuthor(), (author, ids) -> {
+            ids.remove(comment.getId());
+            return ids.isEmpty() ? null : ids;
+        });
     }
 
     /**
@@ -43,9 +91,10 @@ public class CommentManager {
      */
     public ArrayList<Comment> getCommentsWrittenBy(String username) {
         ArrayList<Comment> comments = new ArrayList<>();
-        for (UUID id : this.comments.keySet()) {
+        for (UUID id : commentsByAuthor.getOrDefault(username, new HashSet<>())) {
             Comment comment = this.comments.get(id);
-            if (comment.getAuthor().equals(username)) {
+            // the comment may be deleted while the ids are being read
+            if (comment != null) {
                 comments.add(comment);
             }
         }
@@ -63,8 +112,7 @@ public class CommentManager {
      */
     public ArrayList<Comment> getCommentsUnder(UUID postId) {
         ArrayList<Comment> comments = new ArrayList<>();
-        for (UUID id : this.comments.keySet()) {
-            Comment comment = this.comments.get(id);
+        for (Comment comment : this.comments.values()) {
             if (comment.getPostId().equals(postId)) {
                 comments.add(comment);
             }
@@ -73,14 +121,42 @@ public class CommentManager {
         return comments;
     }
 
+    /**
+     * Return groups of comments whose contents are near-duplicates of each other
+     *
+     * @return a list of groups of at least 2 similar comments, largest group first
+     */
+    public List<List<Comment>> getNearDuplicateComments() {
+        List<List<Comment>> clusters = new ArrayList<>();
+        for (Set<UUID> ids : duplicateIndex.getClusters()) {
+            ArrayList<Comment> cluster = new ArrayList<>();
+            for (UUID id : ids) {
+                Comment comment = comments.get(id);
+                // the comment may have been deleted after the clusters were found
+                if (comment != null) {
+                    cluster.add(comment);
+                }
+            }
+            if (cluster.size() > 1) {
+                commentSorter.sort(cluster);
+                clusters.add(cluster);
+            }
+        }
+        return clusters;
+    }
+
     /**
      * Delete all comments written by the account with the provided username
      *
      * @param username a string representing a username of a user
      */
     public void deleteCommentsWrittenBy(String username) {
-        for (Comment comment : getCommentsWrittenBy(username)) {
-            deleteComment(comment.getId());
+        Set<UUID> ids = commentsByAuthor.remove(username);
+        if (ids != null) {
+            for (UUID id : ids) {
+                comments.remove(id);
+                duplicateIndex.remove(id);
+            }
         }
     }
 
@@ -99,16 +175,74 @@ public class CommentManager {
     public UUID addComment(UUID postID, String content, String author) {
         Comment comment = createComment(postID, content, author);
         comments.put(comment.getId(), comment);
+        index(comment);
+        for (ICommentObserver observer : observers) {
+            observer.update(comment);
+        }
         return comment.getId();
     }
 
+    /**
+     * Add a batch of comments given metadata about each comment. The i-th comment is made up of the i-th element of
+     * each list. Comments with a missing post id or author, or with empty or overly long content, are rejected; the
+     * rest are added in one pass.
+     *
+     * @param postIds  the ids of the posts/parents
+     * @param contents the contents of the comments
+     * @param authors  the usernames of the accounts that wrote the comments
+     * @return a list whose i-th element is the id of the i-th added comment, or null if that comment was rejected
+     */
+    public List<UUID> addComments(List<UUID> postIds, List<String> contents, List<String> authors) {
+        if (postIds.size() != contents.size() || postIds.size() != authors.size()) {
+            throw new IllegalArgumentException("Every comment in a batch needs a post id, content and author.");
+        }
+        List<UUID> ids = new ArrayList<>(postIds.size());
+        List<Comment> added = new ArrayList<>(postIds.size());
+        for (int i = 0; i < postIds.size(); i++) {
+            if (!isValidComment(postIds.get(i), contents.get(i), authors.get(i))) {
+                ids.add(null);
+                continue;
+            }
+            Comment comment = createComment(postIds.get(i), contents.get(i), authors.get(i));
+            added.add(comment);
+            ids.add(comment.getId());
+        }
+        for (Comment comment : added) {
+            comments.put(comment.getId(), comment);
+            index(comment);
+        }
+        for (Comment comment : added) {
+            for (ICommentObserver observer : observers) {
+                observer.update(comment);
+            }
+        }
+        return ids;
+    }
+
+    private boolean isValidComment(UUID postId, String content, String author) {
+        return postId != null && author != null && content != null &&
+                !content.isBlank() && content.length() <= MAX_COMMENT_LENGTH;
+    }
+
+    /**
+     * Register an observer to be notified whenever a comment is added
+     *
+     * @param observer the observer to be notified
+     */
+    public void addObserver(ICommentObserver observer) {
+        observers.add(observer);
+    }
+
     /**
      * Delete a comment based on the id of the comment
      *
      * @param id the id of the comment to be deleted
      */
     public void deleteComment(UUID id) {
-        comments.remove(id);
+        Comment comment = comments.remove(id);
+        if (comment != null) {
+            unindex(comment);
+        }
     }
 
     /**
@@ -118,13 +252,13 @@ public class CommentManager {
      * @return the Comment entity with an id that matches the provided id
      */
     public Comment getComment(UUID id) {
-        return comments.get(id);
+        return id == null ? null : comments.get(id);
     }
 
     /**
      * Saves the current data.
      */
     public void save() {
-        writer.write(comments);
+        writer.write(new HashMap<>(comments));
     }
 }
@@ -0,0 +1,142 @@
+package useCases;
+
+import gateway.IPasswordHasher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class CredentialService {
+    /**
+     * a hasher that hashes and verifies passwords
+     */
+    private IPasswordHasher passwordHasher;
+    /**
+     * the threads that hash passwords, with a bounded queue so that a burst of logins is turned away instead of
+     * piling up
+     */
+    private ThreadPoolExecutor executor;
+    /**
+     * the number of passwords hashed or verified
+     */
+    private LongAdder hashes = new LongAdder();
+    /**
+     * the total time spent hashing or verifying passwords in nanoseconds
+     */
+    private LongAdder hashNanos = new LongAdder();
+    /**
+     * the longest time spent hashing or verifying one password in nanoseconds
+     */
+    private AtomicLong maxHashNanos = new AtomicLong();
+    /**
+     * the number of tasks turned away because the queue was full
+     */
+    private LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor of a use case that hashes and verifies passwords on a dedicated pool of threads
+     *
+     * @param passwordHasher a hasher that hashes and verifies passwords
+     * @param threads the number of threads that hash passwords
+     * @param queueCapacity the number of tasks that can wait for a thread before new tasks are turned away
+     */
+    public CredentialService(IPasswordHasher passwordHasher, int threads, int queueCapacity) {
+        this.passwordHasher = passwordHasher;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "credential-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Hashes a password on the calling thread
+     *
+     * @param password a password
+     * @return the hash of the password
+     */
+    public String hash(String password) {
+        long start = System.nanoTime();
+        try {
+            return passwordHasher.hash(password);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks a password against a stored hash on the calling thread
+     *
+     * @param password a password
+     * @param storedHash a stored hash
+     * @return whether the password matches the stored hash
+     */
+    public boolean verify(String password, String storedHash) {
+        long start = System.nanoTime();
+        try {
+            return passwordHasher.verify(password, storedHash);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns whether a stored hash should be replaced by a hash with the current settings
+     *
+     * @param storedHash a stored hash
+     * @return whether storedHash should be replaced
+     */
+    public boolean needsRehash(String storedHash) {
+        return passwordHasher.needsRehash(storedHash);
+    }
+
+    /**
+     * Runs a task that hashes or verifies passwords on the pool of hashing threads
+     *
+     * @param task a task
+     * @return a future completed with the result of the task, or completed exceptionally with a
+     * RejectedExecutionException if too many tasks are waiting
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Returns statistics about password hashing
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        long count = hashes.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("hashes", count);
+        statistics.put("averageMillis", count == 0 ? 0 : hashNanos.sum() / 1e6 / count);
+        statistics.put("maxMillis", maxHashNanos.get() / 1e6);
+        statistics.put("activeThreads", executor.getActiveCount());
+        statistics.put("queued", executor.getQueue().size());
+        statistics.put("rejected", rejected.sum());
+        return statistics;
+    }
+
+    private void record(long nanos) {
+        hashes.increment();
+        hashNanos.add(nanos);
+        maxHashNanos.accumulateAndGet(nanos, Math::max);
+    }
+}
@@ -0,0 +1,43 @@
+package useCases;
+
+import java.util.List;
+
+public class FollowOverlap {
+    /**
+     * the number of users in the overlap
+     */
+    private int count;
+    /**
+     * the usernames of a few of the users in the overlap
+     */
+    private List<String> sample;
+
+    /**
+     * Constructor of the result of a query for the users two follow lists have in common
+     *
+     * @param count the number of users in the overlap
+     * @param sample the usernames of a few of the users in the overlap
+     */
+    public FollowOverlap(int count, List<String> sample) {
+        this.count = count;
+        this.sample = sample;
+    }
+
+    /**
+     * Returns the number of users in the overlap
+     *
+     * @return the number of users in the overlap
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the usernames of a few of the users in the overlap
+     *
+     * @return a list of at most the requested sample size of usernames
+     */
+    public List<String> getSample() {
+        return sample;
+    }
+}
@@ -0,0 +1,180 @@
+package useCases;
+
+import entities.FollowGraph;
+import entities.IdList;
+import gateway.LRUCache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class FollowRecommender {
+    /**
+     * the largest number of a user's followees whose followees are visited
+     */
+    private static final int MAX_FIRST_HOP = 200;
+    /**
+     * the largest number of followees visited for each followee in the first hop
+     */
+    private static final int MAX_SECOND_HOP = 200;
+    /**
+     * the number of users whose candidate scores are kept
+     */
+    private static final int CACHE_CAPACITY = 1024;
+
+    /**
+     * the graph of who follows whom
+     */
+    private FollowGraph followGraph;
+    /**
+     * a mapping of a username to the scores of the users that could be recommended to them, where a score is the
+     * number of the user's followees that follow the candidate
+     */
+    private LRUCache<String, HashMap<String, Integer>> scores = new LRUCache<>(CACHE_CAPACITY);
+
+    /**
+     * Constructor of a use case that recommends users to follow
+     *
+     * @param followGraph the graph of who follows whom
+     */
+    public FollowRecommender(FollowGraph followGraph) {
+        this.followGraph = followGraph;
+    }
+
+    /**
+     * Returns the users followed by the most of a user's followees, excluding the user and the users they already
+     * follow. Scores are computed with a walk of at most MAX_FIRST_HOP * MAX_SECOND_HOP edges and cached, so they are
+     * estimates for users who follow more than MAX_FIRST_HOP accounts or whose followees follow more than
+     * MAX_SECOND_HOP accounts.
+     *
+     * @param username a username
+     * @param limit the maximum number of users to be returned
+     * @return a mapping of the recommended usernames to their scores, highest score first
+     */
+    public synchronized Map<String, Integer> recommend(String username, int limit) {
+        Map<String, Integer> recommendations = new LinkedHashMap<>();
+        if (followGraph.getId(username) == -1 || limit <= 0) {
+            return recommendations;
+        }
+        HashMap<String, Integer> candidates = scores.get(username);
+        if (candidates == null) {
+            candidates = walk(username);
+            scores.put(username, candidates);
+        }
+
+        Comparator<Map.Entry<String, Integer>> best = Map.Entry.<String, Integer>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(best);
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            // users being removed from the graph can still be reached through the followees of others
+            if (candidate.getValue() <= 0 || followGraph.getId(candidate.getKey()) == -1
+                    || followGraph.isFollowing(username, candidate.getKey())) {
+                continue;
+            }
+            top.add(candidate);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(top);
+        sorted.sort(best.reversed());
+        for (Map.Entry<String, Integer> candidate : sorted) {
+            recommendations.put(candidate.getKey(), candidate.getValue());
+        }
+        return recommendations;
+    }
+
+    /**
+     * Forgets the cached scores that a new follow changes
+     *
+     * @param follower the username of the follower
+     * @param followee the username of the followee
+     */
+    public synchronized void followed(String follower, String followee) {
+        invalidate(follower);
+    }
+
+    /**
+     * Forgets the cached scores that an unfollow changes
+     *
+     * @param follower the username of the former follower
+     * @param followee the username of the former followee
+     */
+    public synchronized void unfollowed(String follower, String followee) {
+        invalidate(follower);
+    }
+
+    /**
+     * Forgets everything cached about a user who is about to be deleted. This must be called while the user is
+     * still in the graph. Other users' scores may still name the user, but users no longer in the graph are never
+     * recommended.
+     *
+     * @param username the username of the user to be deleted
+     */
+    public synchronized void removed(String username) {
+        invalidate(username);
+    }
+
+    /**
+     * Forgets the scores of a user whose followees changed, and of the users following them, whose scores were
+     * counted through those followees. Whichever is smaller of the cache and the user's followers is visited.
+     */
+    private void invalidate(String username) {
+        scores.remove(username);
+        if (followGraph.countFollowers(username) <= scores.size()) {
+            for (String follower : followGraph.getFollowers(username)) {
+                scores.remove(follower);
+            }
+            return;
+        }
+        List<String> followers = new ArrayList<>();
+        scores.forEach((user, candidates) -> {
+            if (followGraph.isFollowing(user, username)) {
+                followers.add(user);
+            }
+        });
+        for (String follower : followers) {
+            scores.remove(follower);
+        }
+    }
+
+    private HashMap<String, Integer> walk(String username) {
+        int id = followGraph.getId(username);
+        IdList followees = followGraph.getFolloweeIds(id);
+        HashMap<Integer, Integer> counts = new HashMap<>();
+        for (int followee : sample(followees, MAX_FIRST_HOP)) {
+            for (int candidate : sample(followGraph.getFolloweeIds(followee), MAX_SECOND_HOP)) {
+                if (candidate != id && !followees.contains(candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        HashMap<String, Integer> candidates = new HashMap<>();
+        for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+            String candidate = followGraph.getUsername(count.getKey());
+            // users being removed from the graph can still be reached through the followees of others
+            if (candidate != null) {
+                candidates.put(candidate, count.getValue());
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Returns at most maxSize ids spread evenly over a list of ids
+     */
+    private int[] sample(IdList ids, int maxSize) {
+        if (ids.size() <= maxSize) {
+            return ids.toArray();
+        }
+        int[] sample = new int[maxSize];
+        for (int i = 0; i < maxSize; i++) {
+            sample[i] = ids.get((int) ((long) i * ids.size() / maxSize));
+        }
+        return sample;
+    }
+}
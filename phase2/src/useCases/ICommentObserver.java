@@ -0,0 +1,12 @@
+package useCases;
+
+import entities.Comment;
+
+public interface ICommentObserver {
+    /**
+     * Notifies the observer that a comment has been added.
+     *
+     * @param comment the comment that was added
+     */
+    void update(Comment comment);
+}
@@ -0,0 +1,111 @@
+package useCases;
+
+import entities.LoginHistory;
+import gateway.IReader;
+import gateway.IWriter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LoginHistoryManager {
+    /**
+     * a mapping of username to the login history of the account
+     */
+    private ConcurrentHashMap<String, LoginHistory> histories = new ConcurrentHashMap<>();
+    /**
+     * a gateway responsible for writing objects
+     */
+    private IWriter writer;
+
+    /**
+     * Constructor of a use case responsible for managing login histories. Login histories are stored apart from
+     * accounts, so that saving accounts does not write every login. If no histories can be read, it starts with none.
+     *
+     * @param reader a gateway responsible for reading objects
+     * @param writer a gateway responsible for writing objects
+     */
+    public LoginHistoryManager(IReader reader, IWriter writer) {
+        this.writer = writer;
+        @SuppressWarnings("unchecked")
+        HashMap<String, LoginHistory> saved = reader.read(HashMap.class);
+        if (saved != null) {
+            histories = new ConcurrentHashMap<>(saved);
+        }
+    }
+
+    /**
+     * Records that a user logged in or signed up now
+     *
+     * @param username a string representing a username of a user.
+     */
+    public void recordLogin(String username) {
+        recordLogin(username, LocalDateTime.now());
+    }
+
+    /**
+     * Records that a user logged in or signed up at a given time
+     *
+     * @param username a string representing a username of a user.
+     * @param time     the time of the login
+     */
+    public void recordLogin(String username, LocalDateTime time) {
+        histories.computeIfAbsent(username, u -> new LoginHistory()).record(time);
+    }
+
+    /**
+     * Returns the times of the recent logins of a user, most recent first
+     *
+     * @param username a string representing a username of a user.
+     * @param offset   the number of most recent logins to be skipped
+     * @param limit    the maximum number of times to be returned
+     * @return         a list of at most limit login times
+     */
+    public List<LocalDateTime> getRecentLogins(String username, int offset, int limit) {
+        LoginHistory history = histories.get(username);
+        return history == null ? new ArrayList<>() : history.getRecentLogins(offset, limit);
+    }
+
+    /**
+     * Returns the number of recent logins of a user whose exact times are kept
+     *
+     * @param username a string representing a username of a user.
+     * @return         the number of recent logins of the user
+     */
+    public int countRecentLogins(String username) {
+        LoginHistory history = histories.get(username);
+        return history == null ? 0 : history.countRecentLogins();
+    }
+
+    /**
+     * Returns the number of logins of a user on each day, for logins that are no longer recent
+     *
+     * @param username a string representing a username of a user.
+     * @return         a mapping of a day to the number of logins on that day, most recent day first
+     */
+    public Map<LocalDate, Integer> getDailyLoginCounts(String username) {
+        LoginHistory history = histories.get(username);
+        return history == null ? new TreeMap<>() : history.getDailyCounts();
+    }
+
+    /**
+     * Deletes the login history of a user
+     *
+     * @param username a string representing a username of a user.
+     */
+    public void deleteHistoryOf(String username) {
+        histories.remove(username);
+    }
+
+    /**
+     * Saves the current data.
+     */
+    public void save() {
+        writer.write(new HashMap<>(histories));
+    }
+}
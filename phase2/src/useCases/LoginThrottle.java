@@ -0,0 +1,288 @@
+package useCases;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class LoginThrottle {
+    /**
+     * the number of login attempts for one username that can be made at once
+     */
+    private static final int USERNAME_BURST = 5;
+    /**
+     * the time it takes for one more login attempt for a username to be allowed
+     */
+    private static final long USERNAME_INTERVAL = TimeUnit.SECONDS.toNanos(20);
+    /**
+     * the number of login attempts from one client address that can be made at once
+     */
+    private static final int ADDRESS_BURST = 20;
+    /**
+     * the time it takes for one more login attempt from a client address to be allowed
+     */
+    private static final long ADDRESS_INTERVAL = TimeUnit.SECONDS.toNanos(2);
+    /**
+     * the number of failed logins in a row from one client address after which the address is locked out of a
+     * username
+     */
+    private static final int MAX_FAILURES = 10;
+    /**
+     * how long a client address stays locked out of a username
+     */
+    private static final long LOCKOUT = TimeUnit.MINUTES.toNanos(15);
+
+    /**
+     * A token bucket kept as the time at which it will be full again. Taking a token moves that time one interval
+     * later, which is allowed as long as it stays within burst intervals of now, so a single compare-and-set
+     * replaces a lock.
+     */
+    private static class Bucket {
+        private final AtomicLong fullAt;
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long lockedUntil;
+
+        private Bucket(long now) {
+            fullAt = new AtomicLong(now);
+            lockedUntil = now;
+        }
+
+        private boolean canTake(long now, long interval, int burst) {
+            return Math.max(fullAt.get(), now) + interval - now <= burst * interval;
+        }
+
+        private boolean tryTake(long now, long interval, int burst) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                if (next - now > burst * interval) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private void giveBack(long interval) {
+            fullAt.addAndGet(-interval);
+        }
+
+        private boolean isLocked(long now) {
+            return lockedUntil - now > 0;
+        }
+
+        private boolean isIdle(long now) {
+            return fullAt.get() - now <= 0 && lockedUntil - now <= 0;
+        }
+    }
+
+    /**
+     * the largest number of usernames or client addresses tracked at once
+     */
+    private int maxTrackedKeys;
+    /**
+     * the clock used to refill buckets, in nanoseconds
+     */
+    private LongSupplier clock;
+    private ConcurrentHashMap<String, Bucket> usernameBuckets = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, Bucket> addressBuckets = new ConcurrentHashMap<>();
+    /**
+     * a mapping of a username and client address to the failed logins from the address to the username. Lockouts
+     * are kept per address, so that failures from one client cannot lock the owner of the username out.
+     */
+    private ConcurrentHashMap<String, Bucket> failureBuckets = new ConcurrentHashMap<>();
+    /**
+     * whether a thread is removing buckets, so that only one thread does it at a time
+     */
+    private AtomicBoolean evicting = new AtomicBoolean();
+
+    private LongAdder allowed = new LongAdder();
+    private LongAdder rejectedByAddress = new LongAdder();
+    private LongAdder rejectedByUsername = new LongAdder();
+    private LongAdder rejectedByLockout = new LongAdder();
+    private LongAdder rejectedByCapacity = new LongAdder();
+    private LongAdder lockouts = new LongAdder();
+
+    /**
+     * Constructor of a use case that limits how often logins can be attempted
+     */
+    public LoginThrottle() {
+        this(100000, System::nanoTime);
+    }
+
+    /**
+     * Constructor of a use case that limits how often logins can be attempted
+     *
+     * @param maxTrackedKeys the largest number of usernames or client addresses tracked at once
+     * @param clock the clock used to refill buckets, in nanoseconds
+     */
+    public LoginThrottle(int maxTrackedKeys, LongSupplier clock) {
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a login attempt from the buckets of a username and a client address. A token is only taken if both
+     * buckets have one, so attempts turned away for one key do not use up the other. This never waits for a lock and
+     * is meant to be called before the password is hashed.
+     *
+     * @param username the username being logged in to
+     * @param clientAddress the address of the client attempting the login
+     * @return whether the attempt may go ahead
+     */
+    public boolean tryAcquire(String username, String clientAddress) {
+        long now = clock.getAsLong();
+        Bucket failureBucket = failureBuckets.get(failureKey(username, clientAddress));
+        if (failureBucket != null && failureBucket.isLocked(now)) {
+            rejectedByLockout.increment();
+            return false;
+        }
+        Bucket addressBucket = getBucket(addressBuckets, clientAddress, now);
+        Bucket usernameBucket = getBucket(usernameBuckets, username, now);
+        if (addressBucket == null || usernameBucket == null) {
+            rejectedByCapacity.increment();
+            return false;
+        }
+        if (!addressBucket.canTake(now, ADDRESS_INTERVAL, ADDRESS_BURST)) {
+            rejectedByAddress.increment();
+            return false;
+        }
+        if (!usernameBucket.canTake(now, USERNAME_INTERVAL, USERNAME_BURST)) {
+            rejectedByUsername.increment();
+            return false;
+        }
+        if (!addressBucket.tryTake(now, ADDRESS_INTERVAL, ADDRESS_BURST)) {
+            rejectedByAddress.increment();
+            return false;
+        }
+        if (!usernameBucket.tryTake(now, USERNAME_INTERVAL, USERNAME_BURST)) {
+            // another attempt took the last token for the username after it was checked
+            addressBucket.giveBack(ADDRESS_INTERVAL);
+            rejectedByUsername.increment();
+            return false;
+        }
+        allowed.increment();
+        return true;
+    }
+
+    /**
+     * Takes a sign up attempt from the bucket of a client address, which is shared with login attempts from it
+     *
+     * @param clientAddress the address of the client attempting the sign up
+     * @return whether the attempt may go ahead
+     */
+    public boolean tryAcquireSignUp(String clientAddress) {
+        long now = clock.getAsLong();
+        Bucket addressBucket = getBucket(addressBuckets, clientAddress, now);
+        if (addressBucket == null) {
+            rejectedByCapacity.increment();
+            return false;
+        }
+        if (!addressBucket.tryTake(now, ADDRESS_INTERVAL, ADDRESS_BURST)) {
+            rejectedByAddress.increment();
+            return false;
+        }
+        allowed.increment();
+        return true;
+    }
+
+    /**
+     * Records a failed login, locking the client address out of the username after too many failures in a row
+     *
+     * @param username the username whose login failed
+     * @param clientAddress the address of the client whose login failed
+     */
+    public void recordFailure(String username, String clientAddress) {
+        long now = clock.getAsLong();
+        Bucket bucket = getBucket(failureBuckets, failureKey(username, clientAddress), now);
+        if (bucket == null) {
+            return;
+        }
+        if (bucket.failures.incrementAndGet() >= MAX_FAILURES) {
+            bucket.failures.set(0);
+            bucket.lockedUntil = now + LOCKOUT;
+            lockouts.increment();
+        }
+    }
+
+    /**
+     * Records a successful login, clearing the failures of the client address for the username
+     *
+     * @param username the username that was logged in to
+     * @param clientAddress the address of the client that logged in
+     */
+    public void recordSuccess(String username, String clientAddress) {
+        Bucket bucket = failureBuckets.get(failureKey(username, clientAddress));
+        if (bucket != null) {
+            bucket.failures.set(0);
+        }
+    }
+
+    /**
+     * Returns statistics about throttled logins
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("allowed", allowed.sum());
+        statistics.put("rejectedByAddress", rejectedByAddress.sum());
+        statistics.put("rejectedByUsername", rejectedByUsername.sum());
+        statistics.put("rejectedByLockout", rejectedByLockout.sum());
+        statistics.put("rejectedByCapacity", rejectedByCapacity.sum());
+        statistics.put("lockouts", lockouts.sum());
+        statistics.put("trackedUsernames", usernameBuckets.size());
+        statistics.put("trackedAddresses", addressBuckets.size());
+        statistics.put("trackedFailures", failureBuckets.size());
+        return statistics;
+    }
+
+    /**
+     * Returns the bucket of a key, adding one if there is none. When maxTrackedKeys keys are tracked and none of
+     * their buckets can be removed, null is returned rather than forgetting how much another key has used or that it
+     * is locked out.
+     */
+    private Bucket getBucket(ConcurrentHashMap<String, Bucket> buckets, String key, long now) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxTrackedKeys) {
+            evict(buckets, now);
+            if (buckets.size() >= maxTrackedKeys) {
+                return null;
+            }
+        }
+        Bucket newBucket = new Bucket(now);
+        bucket = buckets.putIfAbsent(key, newBucket);
+        return bucket == null ? newBucket : bucket;
+    }
+
+    /**
+     * Removes buckets that are full and not locked out, since they behave the same as new buckets
+     */
+    private void evict(ConcurrentHashMap<String, Bucket> buckets, long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * Returns the key of the failures of a client address for a username. Addresses never contain '@', so the key
+     * of one pair cannot be the key of another.
+     */
+    private static String failureKey(String username, String clientAddress) {
+        return username + "@" + clientAddress;
+    }
+}
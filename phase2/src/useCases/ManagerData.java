@@ -1,10 +1,30 @@
 package useCases;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 public class ManagerData {
     private final AccountManager accountManager;
     private final PostManager postManager;
     private final CommentManager commentManager;
-    private String currentUser;
+    private final LoginHistoryManager loginHistoryManager;
+    private final LoginThrottle loginThrottle = new LoginThrottle();
+    private final SessionManager sessionManager = new SessionManager();
+    /**
+     * limits each user to a burst of 20 autocomplete requests, refilled at 5 per second, so that usernames cannot be
+     * enumerated quickly
+     */
+    private final RateLimiter autocompleteLimiter =
+            new RateLimiter(20, TimeUnit.MILLISECONDS.toNanos(200), 100000, System::nanoTime);
+    /**
+     * the pipeline that applies every write on one thread, or null if writes are applied by the threads making them
+     */
+    private volatile WritePipeline writePipeline;
 
     /**
      * Constructor for ManagerData
@@ -12,13 +32,28 @@ public class ManagerData {
      * @param accountManager a use case for accounts
      * @param postManager a use case for posts
      * @param commentManager a use case for comments
+     * @param loginHistoryManager a use case for login histories
      */
     public ManagerData(AccountManager accountManager,
                        PostManager postManager,
-                       CommentManager commentManager) {
+                       CommentManager commentManager,
+                       LoginHistoryManager loginHistoryManager) {
         this.accountManager = accountManager;
         this.postManager = postManager;
         this.commentManager = commentManager;
+        this.loginHistoryManager = loginHistoryManager;
+        // accounts saved before login histories were stored apart from them still hold their logins, which are moved
+        // to the login history manager and saved before the accounts are saved without them
+        Map<String, List<LocalDateTime>> legacyHistories = accountManager.takeLegacyHistories();
+        if (!legacyHistories.isEmpty()) {
+            for (Map.Entry<String, List<LocalDateTime>> entry : legacyHistories.entrySet()) {
+                for (LocalDateTime time : entry.getValue()) {
+                    loginHistoryManager.recordLogin(entry.getKey(), time);
+                }
+            }
+            loginHistoryManager.save();
+            accountManager.save();
+        }
     }
 
     /**
@@ -49,36 +84,152 @@ public class ManagerData {
     }
 
     /**
-     * Gets the username of the current user who's logged in
+     * Gets the login history manager stored in manager data
+     *
+     * @return the login history manager stored in manager data
+     */
+    public LoginHistoryManager getLoginHistoryManager() {
+        return loginHistoryManager;
+    }
+
+    /**
+     * Gets the login throttle stored in manager data
+     *
+     * @return the login throttle stored in manager data
+     */
+    public LoginThrottle getLoginThrottle() {
+        return loginThrottle;
+    }
+
+    /**
+     * Gets the session manager stored in manager data
+     *
+     * @return the session manager stored in manager data
+     */
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    /**
+     * Gets the rate limiter of username autocompletion stored in manager data
+     *
+     * @return the rate limiter of username autocompletion stored in manager data
+     */
+    public RateLimiter getAutocompleteLimiter() {
+        return autocompleteLimiter;
+    }
+
+    /**
+     * Gets the role of a logged in user
+     *
+     * @param username the username of the user, or null if no user is logged in
+     * @return whether the user is an admin
+     */
+    public boolean isAdmin(String username) {
+        return username != null && accountManager.containsUser(username) && accountManager.isAdmin(username);
+    }
+
+    /**
+     * Switches to applying writes on a single writer thread. Each batch of writes is saved once after it is applied,
+     * and the callers of write wait until their batch has been saved. Reads are unaffected.
+     *
+     * @param capacity the number of writes that can wait to be applied before writers have to wait for space
+     * @param maxBatchSize the largest number of writes saved together
+     */
+    public synchronized void startWritePipeline(int capacity, int maxBatchSize) {
+        if (writePipeline == null) {
+            writePipeline = new WritePipeline(capacity, maxBatchSize, this::saveAll);
+        }
+    }
+
+    /**
+     * Switches back to applying writes on the threads making them, once every queued write has been applied and saved
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public synchronized void stopWritePipeline() throws InterruptedException {
+        if (writePipeline != null) {
+            writePipeline.close();
+            writePipeline = null;
+        }
+    }
+
+    /**
+     * Applies a change to the use cases, on the writer thread if the write pipeline is started or on the calling
+     * thread otherwise
+     *
+     * @param write the change
+     * @return the result of the change
+     */
+    public <T> T write(Supplier<T> write) {
+        WritePipeline pipeline = writePipeline;
+        return pipeline == null ? write.get() : pipeline.write(write);
+    }
+
+    /**
+     * Applies a change to the use cases, on the writer thread if the write pipeline is started or on the calling
+     * thread otherwise
      *
-     * @return the username of the current user who's logged in
+     * @param write the change
      */
-    public String getCurrentUser() {
-        return currentUser;
+    public void write(Runnable write) {
+        write(() -> {
+            write.run();
+            return null;
+        });
     }
 
     /**
-     * Sets the username of the current user who's logged in
+     * Queues a change to the use cases without waiting for it when the write pipeline is started, or applies it on
+     * the calling thread otherwise
+     *
+     * @param write the change
+     * @return a future completed once the change has been applied and saved
      */
-    public void setCurrentUser(String currentUser) {
-        this.currentUser = currentUser;
+    public CompletableFuture<Void> writeLater(Runnable write) {
+        WritePipeline pipeline = writePipeline;
+        if (pipeline == null) {
+            write.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return pipeline.submit(() -> {
+            write.run();
+            return null;
+        });
     }
 
     /**
-     * Gets the role of the current user who's logged in
+     * Returns statistics about the write pipeline
      *
-     * @return whether the current user is an admin
+     * @return a mapping of the name of each statistic to its value
      */
-    public boolean getCurrentUserRole() {
-        return currentUser != null && accountManager.isAdmin(currentUser);
+    public Map<String, Object> getWritePipelineStatistics() {
+        WritePipeline pipeline = writePipeline;
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", pipeline != null);
+        if (pipeline != null) {
+            statistics.putAll(pipeline.getStatistics());
+        }
+        return statistics;
     }
 
     /**
-     * Saves data in all 3 use cases.
+     * Saves data in all 4 use cases. When the write pipeline is started, data is saved by the writer after each
+     * batch, so this waits for the next batch to be saved instead, and does nothing when called by a write.
      */
     public void save() {
+        WritePipeline pipeline = writePipeline;
+        if (pipeline == null) {
+            saveAll();
+        } else if (!pipeline.isWriterThread()) {
+            pipeline.write(() -> null);
+        }
+    }
+
+    private void saveAll() {
         accountManager.save();
         postManager.save();
         commentManager.save();
+        loginHistoryManager.save();
     }
 }
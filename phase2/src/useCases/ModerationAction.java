@@ -0,0 +1,11 @@
+package useCases;
+
+/**
+ * An action that an admin can apply to many accounts at once
+ */
+public enum ModerationAction {
+    BAN,
+    UNBAN,
+    PROMOTE,
+    DELETE
+}
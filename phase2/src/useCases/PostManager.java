@@ -1,19 +1,23 @@
 package useCases;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
 import entities.Post;
+import gateway.INearDuplicateIndex;
 import gateway.IPostSorter;
 import gateway.IReader;
 import gateway.IWriter;
+import gateway.MinHashIndex;
 
 public class PostManager {
     /**
      * a mapping of id of the post to the post entity
      */
-    private HashMap<UUID, Post> posts = new HashMap<>();
+    private ConcurrentHashMap<UUID, Post> posts = new ConcurrentHashMap<>();
     /**
      * a gateway responsible for writing objects
      */
@@ -22,6 +26,10 @@ public class PostManager {
      *  a sorter that sorts an arraylist of posts
      */
     private IPostSorter postSorter;
+    /**
+     * an index of the contents of posts used to find near-duplicate posts
+     */
+    private INearDuplicateIndex duplicateIndex = new MinHashIndex();
 
     /**
      * Constructor of a use case responsible for managing posts.
@@ -31,8 +39,14 @@ public class PostManager {
      */
     public PostManager(IReader reader, IWriter writer, IPostSorter postSorter) {
         this.writer = writer;
-        posts = reader.read(posts.getClass());
+        // posts are saved as a HashMap, which is copied into a concurrent map so that reads need no lock
+        @SuppressWarnings("unchecked")
+        HashMap<UUID, Post> savedPosts = reader.read(HashMap.class);
+        posts = new ConcurrentHashMap<>(savedPosts);
         this.postSorter = postSorter;
+        for (Post post : posts.values()) {
+            duplicateIndex.add(post.getId(), post.getContent());
+        }
     }
 
     /**
@@ -43,8 +57,7 @@ public class PostManager {
      */
     public List<Post> getPostsWrittenBy(String username) {
         ArrayList<Post> posts = new ArrayList<>();
-        for (UUID id : this.posts.keySet()) {
-            Post post = this.posts.get(id);
+        for (Post post : this.posts.values()) {
             if (post.getAuthor().equals(username)) {
                 posts.add(post);
             }
@@ -81,6 +94,7 @@ public class PostManager {
     public UUID addPost(String title, String content, String author) {
         Post post = createPost(title, content, author);
         posts.put(post.getId(), post);
+        duplicateIndex.add(post.getId(), post.getContent());
         return post.getId();
     }
 
@@ -91,6 +105,7 @@ public class PostManager {
      */
     public void deletePost(UUID id) {
         posts.remove(id);
+        duplicateIndex.remove(id);
     }
 
     /**
@@ -100,13 +115,36 @@ public class PostManager {
      * @return the post with an id that matches the provided id. .
      */
     public Post getPost(UUID id) {
-        return posts.get(id);
+        return id == null ? null : posts.get(id);
+    }
+
+    /**
+     * Return groups of posts whose contents are near-duplicates of each other.
+     *
+     * @return a list of groups of at least 2 similar posts, largest group first
+     */
+    public List<List<Post>> getNearDuplicatePosts() {
+        List<List<Post>> clusters = new ArrayList<>();
+        for (Set<UUID> ids : duplicateIndex.getClusters()) {
+            ArrayList<Post> cluster = new ArrayList<>();
+            for (UUID id : ids) {
+                Post post = posts.get(id);
+                // the post may have been deleted after the clusters were found
+                if (post != null) {
+                    cluster.add(post);
+                }
+            }
+            if (cluster.size() > 1) {
+                clusters.add(postSorter.sort(cluster));
+            }
+        }
+        return clusters;
     }
 
     /**
      * Saves the current data.
      */
     public void save() {
-        writer.write(posts);
+        writer.write(new HashMap<>(posts));
     }
 }
@@ -0,0 +1,116 @@
+package useCases;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class RateLimiter {
+    /**
+     * the number of requests for one key that can be made at once
+     */
+    private int burst;
+    /**
+     * the time it takes for one more request for a key to be allowed, in nanoseconds
+     */
+    private long interval;
+    /**
+     * the largest number of keys tracked at once
+     */
+    private int maxTrackedKeys;
+    /**
+     * the clock used to refill buckets, in nanoseconds
+     */
+    private LongSupplier clock;
+    /**
+     * a mapping of each key to the time at which its token bucket will be full again. Taking a token moves that time
+     * one interval later, which is allowed as long as it stays within burst intervals of now.
+     */
+    private ConcurrentHashMap<String, AtomicLong> fullAt = new ConcurrentHashMap<>();
+    /**
+     * whether a thread is removing buckets, so that only one thread does it at a time
+     */
+    private AtomicBoolean evicting = new AtomicBoolean();
+
+    private LongAdder allowed = new LongAdder();
+    private LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor of a use case that limits how often a key, such as a user, can make a request
+     *
+     * @param burst the number of requests for one key that can be made at once
+     * @param interval the time it takes for one more request for a key to be allowed, in nanoseconds
+     * @param maxTrackedKeys the largest number of keys tracked at once
+     * @param clock the clock used to refill buckets, in nanoseconds
+     */
+    public RateLimiter(int burst, long interval, int maxTrackedKeys, LongSupplier clock) {
+        this.burst = burst;
+        this.interval = interval;
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a request from the bucket of a key. When maxTrackedKeys keys are tracked and none of their buckets are
+     * full, requests for new keys are turned away rather than forgetting how much another key has used.
+     *
+     * @param key the key making the request
+     * @return whether the request may go ahead
+     */
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = fullAt.get(key);
+        if (bucket == null) {
+            if (fullAt.size() >= maxTrackedKeys) {
+                evict(now);
+                if (fullAt.size() >= maxTrackedKeys) {
+                    rejected.increment();
+                    return false;
+                }
+            }
+            bucket = fullAt.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = bucket.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > burst * interval) {
+                rejected.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(current, next)) {
+                allowed.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns statistics about limited requests
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("allowed", allowed.sum());
+        statistics.put("rejected", rejected.sum());
+        statistics.put("trackedKeys", fullAt.size());
+        return statistics;
+    }
+
+    /**
+     * Removes full buckets, since they behave the same as new buckets
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            fullAt.values().removeIf(bucket -> bucket.get() - now <= 0);
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package useCases;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class SessionManager {
+    /**
+     * the number of random bytes in a session token
+     */
+    private static final int TOKEN_BYTES = 32;
+    /**
+     * how long a session lasts without being used
+     */
+    private static final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(30);
+
+    /**
+     * A logged in user and the last time their session was used
+     */
+    private static class Session {
+        private final String username;
+        private volatile long lastUsed;
+
+        private Session(String username, long now) {
+            this.username = username;
+            this.lastUsed = now;
+        }
+
+        private boolean isExpired(long now) {
+            return now - lastUsed > IDLE_TIMEOUT;
+        }
+    }
+
+    /**
+     * the largest number of sessions kept at once
+     */
+    private int maxSessions;
+    /**
+     * the clock used to expire sessions, in nanoseconds
+     */
+    private LongSupplier clock;
+    /**
+     * a mapping of session token to session
+     */
+    private ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private SecureRandom random = new SecureRandom();
+    /**
+     * whether a thread is removing sessions, so that only one thread does it at a time
+     */
+    private AtomicBoolean evicting = new AtomicBoolean();
+
+    private LongAdder created = new LongAdder();
+    private LongAdder expired = new LongAdder();
+    private LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor of a use case that keeps track of logged in users
+     */
+    public SessionManager() {
+        this(100000, System::nanoTime);
+    }
+
+    /**
+     * Constructor of a use case that keeps track of logged in users
+     *
+     * @param maxSessions the largest number of sessions kept at once
+     * @param clock the clock used to expire sessions, in nanoseconds
+     */
+    public SessionManager(int maxSessions, LongSupplier clock) {
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a session for a user. If there are already maxSessions sessions, expired sessions are removed. Sessions
+     * that are still in use are never removed to make room, so if none have expired the new session is turned away.
+     *
+     * @param username the username of the user who logged in
+     * @return a random token that identifies the session, or null if there are too many sessions
+     */
+    public String create(String username) {
+        long now = clock.getAsLong();
+        if (sessions.size() >= maxSessions) {
+            evict(now);
+            if (sessions.size() >= maxSessions) {
+                rejected.increment();
+                return null;
+            }
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(username, now));
+        created.increment();
+        return token;
+    }
+
+    /**
+     * Returns the user of a session and marks the session as used
+     *
+     * @param token a session token
+     * @return the username of the user of the session, or null if there is no such session or it has expired
+     */
+    public String getUsername(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (session.isExpired(now)) {
+            if (sessions.remove(token, session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.lastUsed = now;
+        return session.username;
+    }
+
+    /**
+     * Ends a session
+     *
+     * @param token a session token
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    /**
+     * Ends every session of some users, such as users who were deleted or banned
+     *
+     * @param usernames the usernames of the users
+     */
+    public void invalidateAll(Collection<String> usernames) {
+        Set<String> users = new HashSet<>(usernames);
+        if (!users.isEmpty()) {
+            sessions.values().removeIf(session -> users.contains(session.username));
+        }
+    }
+
+    /**
+     * Returns statistics about sessions
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("active", sessions.size());
+        statistics.put("created", created.sum());
+        statistics.put("expired", expired.sum());
+        statistics.put("rejected", rejected.sum());
+        return statistics;
+    }
+
+    /**
+     * Removes expired sessions
+     */
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Iterator<Session> iterator = sessions.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired(now)) {
+                    iterator.remove();
+                    expired.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
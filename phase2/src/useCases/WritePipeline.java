@@ -0,0 +1,257 @@
+package useCases;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class WritePipeline {
+    /**
+     * A change waiting to be applied by the writer, and the future its caller waits on
+     */
+    private static class Command<T> {
+        private final Supplier<T> action;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private T value;
+        private Throwable error;
+
+        private Command(Supplier<T> action) {
+            this.action = action;
+        }
+
+        private void apply() {
+            try {
+                value = action.get();
+            } catch (Throwable e) {
+                // a failing command is reported to its caller instead of stopping the writer
+                error = e;
+            }
+        }
+
+        /**
+         * Reports a failed flush to the caller, unless the command itself failed. The change has been applied but
+         * not saved.
+         */
+        private void failFlush(RuntimeException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        private void complete() {
+            if (error == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * a command queued by close, after which the writer stops
+     */
+    private static final Command<Void> STOP = new Command<>(() -> null);
+
+    /**
+     * the commands waiting to be applied, oldest first. Callers wait for space when it is full.
+     */
+    private ArrayBlockingQueue<Command<?>> queue;
+    /**
+     * the largest number of commands applied before flush is run
+     */
+    private int maxBatchSize;
+    /**
+     * run by the writer after each batch of commands is applied and before their callers are told
+     */
+    private Runnable flush;
+    /**
+     * the only thread that applies commands
+     */
+    private Thread writer;
+    /**
+     * whether new commands are turned away
+     */
+    private volatile boolean closed;
+    /**
+     * the number of callers between checking closed and queueing their command. close waits for them, so that every
+     * accepted command is queued before the writer is stopped.
+     */
+    private AtomicInteger submitting = new AtomicInteger();
+
+    private LongAdder applied = new LongAdder();
+    private LongAdder batches = new LongAdder();
+    private AtomicLong largestBatch = new AtomicLong();
+    private LongAdder flushNanos = new LongAdder();
+    private LongAdder failedFlushes = new LongAdder();
+
+    /**
+     * Constructor of a pipeline that applies changes one at a time on a single writer thread. The writer takes every
+     * command waiting in the queue as one batch, applies them in the order they were submitted, runs flush once for
+     * the whole batch, and only then completes their futures.
+     *
+     * @param capacity the number of commands that can wait to be applied before callers have to wait for space
+     * @param maxBatchSize the largest number of commands applied before flush is run
+     * @param flush run after each batch is applied, such as saving the data the batch changed
+     */
+    public WritePipeline(int capacity, int maxBatchSize, Runnable flush) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flush = flush;
+        writer = new Thread(this::run, "write-pipeline");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a change to be applied by the writer. A command submitted by another command is applied at once, as
+     * part of the batch of the command that submitted it.
+     *
+     * @param action the change, which runs on the writer thread
+     * @return a future completed with the result of the change once its batch has been flushed, or completed
+     * exceptionally with what the change or the flush threw, or with a RejectedExecutionException if the pipeline is
+     * closed
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> action) {
+        Command<T> command = new Command<>(action);
+        if (isWriterThread()) {
+            command.apply();
+            command.complete();
+            return command.result;
+        }
+        // the count is raised before closed is read, so either close sees this caller or this caller sees closed
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("The write pipeline is closed."));
+            }
+            // no lock is held while waiting for space, so callers only wait on each other when the queue is full
+            queue.put(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            if (submitting.decrementAndGet() == 0 && closed) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+        return command.result;
+    }
+
+    /**
+     * Applies a change on the writer and waits until its batch has been flushed
+     *
+     * @param action the change, which runs on the writer thread
+     * @return the result of the change
+     */
+    public <T> T write(Supplier<T> action) {
+        try {
+            return submit(action).join();
+        } catch (CompletionException e) {
+            // rethrow what the change threw, as it would have been had the change run on the calling thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns whether the calling thread is the writer
+     *
+     * @return whether the calling thread is the writer
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writer;
+    }
+
+    /**
+     * Turns away new commands and waits until every queued command has been applied and flushed
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            while (submitting.get() > 0) {
+                wait();
+            }
+        }
+        queue.put(STOP);
+        writer.join();
+    }
+
+    /**
+     * Returns statistics about the pipeline
+     *
+     * @return a mapping of the name of each statistic to its value
+     */
+    public Map<String, Object> getStatistics() {
+        long batchCount = batches.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("queued", queue.size());
+        statistics.put("applied", applied.sum());
+        statistics.put("batches", batchCount);
+        statistics.put("averageBatchSize", batchCount == 0 ? 0 : (double) applied.sum() / batchCount);
+        statistics.put("largestBatch", largestBatch.get());
+        statistics.put("averageFlushMillis", batchCount == 0 ? 0 : flushNanos.sum() / 1e6 / batchCount);
+        statistics.put("failedFlushes", failedFlushes.sum());
+        return statistics;
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            int size = 0;
+            for (Command<?> command : batch) {
+                if (command == STOP) {
+                    stopping = true;
+                } else {
+                    command.apply();
+                    size++;
+                }
+            }
+            if (size > 0) {
+                long start = System.nanoTime();
+                try {
+                    flush.run();
+                } catch (RuntimeException e) {
+                    failedFlushes.increment();
+                    System.out.println(e.getMessage());
+                    for (Command<?> command : batch) {
+                        command.failFlush(e);
+                    }
+                }
+                flushNanos.add(System.nanoTime() - start);
+                applied.add(size);
+                batches.increment();
+                largestBatch.accumulateAndGet(size, Math::max);
+            }
+            for (Command<?> command : batch) {
+                command.complete();
+            }
+            batch.clear();
+        }
+    }
+}
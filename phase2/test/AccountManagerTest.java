@@ -1,7 +1,14 @@
 import exception.*;
 import gateway.*;
 import org.junit.Test;
+import entities.Account;
 import useCases.AccountManager;
+import useCases.AccountPage;
+import useCases.ModerationAction;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -150,4 +157,278 @@ public class AccountManagerTest {
             System.out.println(e.getMessage());
         }
     }
+
+    @Test
+    public void testRehashPassword() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            String legacyHash = accountManager.getUser("admin").getHashedPassword();
+            String rehashedPassword = accountManager.login("admin", "password");
+            assertNotNull(rehashedPassword);
+            assertEquals(legacyHash, accountManager.getUser("admin").getHashedPassword());
+            accountManager.rehashPassword("admin", rehashedPassword);
+            assertEquals(rehashedPassword, accountManager.getUser("admin").getHashedPassword());
+            assertNull(accountManager.login("admin", "password"));
+        } catch (IncorrectPasswordException | UsernameNotFoundException | AccountBannedException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLegacyFollows() {
+        IReader reader = new Reader("test/testData/testLegacyAccountData.txt");
+        IWriter writer = new Writer("test/testData/testLegacyAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        assertEquals(Set.of("bob"), accountManager.getFolloweesOf("alice"));
+        assertEquals(Set.of("alice"), accountManager.getFollowersOf("bob"));
+        assertTrue(accountManager.getFollowersOf("alice").isEmpty());
+    }
+
+    @Test
+    public void testSearch() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            accountManager.signUp("user1", "password");
+            accountManager.signUp("user2", "password");
+            accountManager.signUp("zzzzzzzz", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        accountManager.deleteSelf("user2");
+        List<Account> accounts = accountManager.search("user", 2);
+        assertEquals(2, accounts.size());
+        assertEquals("user1", accounts.get(0).getUsername());
+        assertEquals("admin", accounts.get(1).getUsername());
+    }
+
+    @Test
+    public void testAutocomplete() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            accountManager.signUp("user2", "password");
+            accountManager.signUp("user1", "password");
+            accountManager.signUp("user", "password");
+            accountManager.createAdmin("use", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        accountManager.deleteSelf("user");
+        assertEquals(List.of("use", "user1"), accountManager.autocomplete("use", 2));
+        assertEquals(List.of("user1", "user2"), accountManager.autocomplete("user", 10));
+        assertEquals(List.of(), accountManager.autocomplete("x", 10));
+    }
+
+    @Test
+    public void testSearchWithTrigramIndex() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter, new TrigramIndex());
+        try {
+            accountManager.signUp("blogger", "password");
+            accountManager.signUp("blogger99", "password");
+            accountManager.signUp("reader", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        accountManager.deleteSelf("blogger");
+        List<Account> accounts = accountManager.search("bloger", 1);
+        assertEquals(1, accounts.size());
+        assertEquals("blogger99", accounts.get(0).getUsername());
+    }
+
+    @Test
+    public void testSearchTooCommonForIndex() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new ParallelAccountSorter(2, 1);
+        // an index that cannot narrow down any query
+        IUsernameIndex index = new IUsernameIndex() {
+            @Override
+            public void add(String username) {
+            }
+
+            @Override
+            public void remove(String username) {
+            }
+
+            @Override
+            public List<String> search(String targetUsername, int limit) {
+                return null;
+            }
+        };
+        AccountManager accountManager = new AccountManager(reader, writer, sorter, index);
+        try {
+            accountManager.signUp("blogger", "password");
+            accountManager.signUp("reader", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        List<Account> accounts = accountManager.search("bloger", 1);
+        assertEquals(1, accounts.size());
+        assertEquals("blogger", accounts.get(0).getUsername());
+    }
+
+    @Test
+    public void testSearchCache() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        accountManager.search("user", 1);
+        accountManager.search(" user ", 1);
+        assertEquals(1L, accountManager.getSearchCacheStatistics().get("hits"));
+        try {
+            accountManager.signUp("user", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        List<Account> accounts = accountManager.search("user", 1);
+        assertEquals("user", accounts.get(0).getUsername());
+        assertEquals(2L, accountManager.getSearchCacheStatistics().get("misses"));
+    }
+
+    @Test
+    public void testCountFollowers() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            accountManager.signUp("user1", "password");
+            accountManager.signUp("user2", "password");
+            accountManager.follow("user1", "admin");
+            accountManager.follow("user2", "admin");
+            accountManager.follow("admin", "user1");
+        } catch (UsernameExistsException | InvalidUsernameException | UsernameNotFoundException |
+                 UserFollowedException e) {
+            System.out.println(e.getMessage());
+        }
+        accountManager.deleteSelf("user2");
+        assertEquals(1, accountManager.countFollowersOf("admin"));
+        assertEquals(1, accountManager.countFolloweesOf("admin"));
+        assertEquals(0, accountManager.countFollowersOf("user2"));
+    }
+
+    @Test
+    public void testRecommendFollowees() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            accountManager.signUp("user1", "password");
+            accountManager.signUp("user2", "password");
+            accountManager.signUp("user3", "password");
+            accountManager.follow("admin", "user1");
+            accountManager.follow("admin", "user2");
+            accountManager.follow("user1", "user3");
+            accountManager.follow("user2", "user3");
+            accountManager.follow("user2", "user1");
+            assertEquals(Map.of("user3", 2), accountManager.recommendFollowees("admin", 5));
+            accountManager.unfollow("admin", "user1");
+            assertEquals(Map.of("user3", 1, "user1", 1), accountManager.recommendFollowees("admin", 5));
+            accountManager.follow("admin", "user3");
+            assertEquals(Map.of("user1", 1), accountManager.recommendFollowees("admin", 5));
+            // a follow by one of admin's followees changes admin's cached scores
+            accountManager.signUp("user4", "password");
+            accountManager.follow("user2", "user4");
+            assertEquals(Map.of("user1", 1, "user4", 1), accountManager.recommendFollowees("admin", 5));
+        } catch (UsernameExistsException | InvalidUsernameException | UsernameNotFoundException |
+                 UserFollowedException | UserNotFollowedException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGetFollowerPageOf() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            for (int i = 0; i < 5; i++) {
+                accountManager.signUp("user" + i, "password");
+                accountManager.follow("user" + i, "admin");
+            }
+        } catch (UsernameExistsException | InvalidUsernameException | UsernameNotFoundException |
+                 UserFollowedException e) {
+            System.out.println(e.getMessage());
+        }
+        AccountPage page1 = accountManager.getFollowerPageOf("admin", -1, 2);
+        assertEquals("user0", page1.getAccounts().get(0).getUsername());
+        assertEquals("user1", page1.getAccounts().get(1).getUsername());
+        accountManager.deleteSelf("user1");
+        // the id of the deleted account, which is the cursor, is not given to the new account
+        try {
+            accountManager.signUp("user5", "password");
+            accountManager.follow("user5", "admin");
+        } catch (UsernameExistsException | InvalidUsernameException | UsernameNotFoundException |
+                 UserFollowedException e) {
+            System.out.println(e.getMessage());
+        }
+        AccountPage page2 = accountManager.getFollowerPageOf("admin", page1.getNextCursor(), 2);
+        assertEquals("user2", page2.getAccounts().get(0).getUsername());
+        assertEquals("user3", page2.getAccounts().get(1).getUsername());
+        AccountPage page3 = accountManager.getFollowerPageOf("admin", page2.getNextCursor(), 2);
+        assertEquals("user4", page3.getAccounts().get(0).getUsername());
+        assertEquals("user5", page3.getAccounts().get(1).getUsername());
+        assertEquals(-1, page3.getNextCursor());
+    }
+
+    @Test
+    public void testModerate() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        try {
+            accountManager.signUp("bot1", "password");
+            accountManager.signUp("bot2", "password");
+            accountManager.signUp("bot10", "password");
+            accountManager.signUp("robot", "password");
+        } catch (UsernameExistsException | InvalidUsernameException e) {
+            System.out.println(e.getMessage());
+        }
+        try {
+            assertEquals(List.of("bot1", "bot10", "bot2"), accountManager.findUsernames("bot*", 10));
+            assertEquals(List.of("bot1", "bot10"), accountManager.findUsernames("bot*", 2));
+            assertEquals(List.of("bot1", "bot2"), accountManager.findUsernames("bot?", 10));
+            assertEquals(List.of("robot"), accountManager.findUsernames("robot", 10));
+
+            Map<String, String> results = accountManager.moderate(ModerationAction.BAN,
+                    List.of("bot1", "admin", "nobody", "bot1"));
+            assertEquals(3, results.size());
+            assertEquals("Success", results.get("bot1"));
+            assertTrue(accountManager.isBanned("bot1"));
+            assertFalse(accountManager.isBanned("admin"));
+            assertNotEquals("Success", results.get("nobody"));
+
+            results = accountManager.moderate(ModerationAction.DELETE, accountManager.findUsernames("bot*", 10));
+            assertEquals(3, results.size());
+            assertTrue(accountManager.findUsernames("bot*", 10).isEmpty());
+            assertTrue(accountManager.containsUser("robot"));
+        } catch (InvalidPatternException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test(expected = InvalidPatternException.class)
+    public void testFindUsernamesStartingWithWildcard() throws InvalidPatternException {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        IAccountSorter sorter = new AccountSorter();
+        AccountManager accountManager = new AccountManager(reader, writer, sorter);
+        accountManager.findUsernames("*bot", 10);
+    }
 }
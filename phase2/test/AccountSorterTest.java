@@ -0,0 +1,53 @@
+import entities.Account;
+import gateway.AccountSorter;
+import gateway.IAccountSorter;
+import gateway.ParallelAccountSorter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class AccountSorterTest {
+    @Test
+    public void testSortWithLimit() {
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account("zzzzzz", "password"));
+        accounts.add(new Account("user", "password"));
+        accounts.add(new Account("admin", "password"));
+        accounts.add(new Account("user1", "password"));
+        IAccountSorter sorter = new AccountSorter();
+        sorter.sort(accounts, "user", 2);
+        assertEquals(2, accounts.size());
+        assertEquals("user", accounts.get(0).getUsername());
+        assertEquals("user1", accounts.get(1).getUsername());
+    }
+
+    @Test
+    public void testSortKeepsTiesInOrder() {
+        List<Account> accounts = new ArrayList<>();
+        accounts.add(new Account("userB", "password"));
+        accounts.add(new Account("admin", "password"));
+        accounts.add(new Account("userA", "password"));
+        IAccountSorter sorter = new AccountSorter();
+        sorter.sort(accounts, "user", 0);
+        assertEquals(3, accounts.size());
+        assertEquals("userB", accounts.get(0).getUsername());
+        assertEquals("userA", accounts.get(1).getUsername());
+        assertEquals("admin", accounts.get(2).getUsername());
+    }
+
+    @Test
+    public void testParallelSortMatchesSequentialSort() {
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            accounts.add(new Account("user" + (i * 7919 % 1000), "password"));
+        }
+        List<Account> expected = new ArrayList<>(accounts);
+        new AccountSorter().sort(expected, "user42", 25);
+        IAccountSorter sorter = new ParallelAccountSorter(4, 16);
+        sorter.sort(accounts, "user42", 25);
+        assertEquals(expected, accounts);
+    }
+}
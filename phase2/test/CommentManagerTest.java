@@ -2,9 +2,12 @@ import gateway.*;
 import org.junit.Test;
 import useCases.CommentManager;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 
 public class CommentManagerTest {
@@ -44,4 +47,62 @@ public class CommentManagerTest {
         commentManager.deleteCommentsWrittenBy("user");
         assertEquals(commentManager.getCommentsWrittenBy("user").size(), 0);
     }
+
+    @Test
+    public void testAddCommentNotifiesObservers() {
+        IReader reader = new Reader("test/testData/testCommentData.txt");
+        IWriter writer = new Writer("test/testData/testCommentData.txt");
+        ICommentSorter sorter = new CommentTimeSorter();
+        CommentManager commentManager = new CommentManager(reader, writer, sorter);
+        List<UUID> notified = new ArrayList<>();
+        commentManager.addObserver(comment -> notified.add(comment.getId()));
+        UUID commentId = commentManager.addComment(UUID.randomUUID(), "comment", "user");
+        assertEquals(1, notified.size());
+        assertEquals(commentId, notified.get(0));
+    }
+
+    @Test
+    public void testAddComments() {
+        IReader reader = new Reader("test/testData/testCommentData.txt");
+        IWriter writer = new Writer("test/testData/testCommentData.txt");
+        ICommentSorter sorter = new CommentTimeSorter();
+        CommentManager commentManager = new CommentManager(reader, writer, sorter);
+        UUID randId = UUID.randomUUID();
+        List<UUID> ids = commentManager.addComments(
+                List.of(randId, randId, randId),
+                List.of("comment", " ", "comment 2.0"),
+                List.of("user", "user", "user"));
+        assertEquals(3, ids.size());
+        assertNull(ids.get(1));
+        assertEquals("comment", commentManager.getComment(ids.get(0)).getContent());
+        assertEquals(2, commentManager.getCommentsUnder(randId).size());
+    }
+
+    @Test
+    public void testGetCommentsWrittenBy() {
+        IReader reader = new Reader("test/testData/testCommentData.txt");
+        IWriter writer = new Writer("test/testData/testCommentData.txt");
+        ICommentSorter sorter = new CommentTimeSorter();
+        CommentManager commentManager = new CommentManager(reader, writer, sorter);
+        UUID randId = UUID.randomUUID();
+        UUID commentId = commentManager.addComment(randId, "comment", "user");
+        commentManager.addComment(randId, "comment 2.0", "user");
+        commentManager.addComment(randId, "comment 3.0", "uesr");
+        commentManager.deleteComment(commentId);
+        assertEquals(1, commentManager.getCommentsWrittenBy("user").size());
+        assertEquals("comment 2.0", commentManager.getCommentsWrittenBy("user").get(0).getContent());
+    }
+
+    @Test
+    public void testGetNearDuplicateComments() {
+        IReader reader = new Reader("test/testData/testCommentData.txt");
+        IWriter writer = new Writer("test/testData/testCommentData.txt");
+        ICommentSorter sorter = new CommentTimeSorter();
+        CommentManager commentManager = new CommentManager(reader, writer, sorter);
+        commentManager.addComment(UUID.randomUUID(), "Buy cheap watches at example dot com!!", "spammer");
+        commentManager.addComment(UUID.randomUUID(), "buy cheap watches at example dot com!", "spammer");
+        commentManager.addComment(UUID.randomUUID(), "I really enjoyed reading this post", "user");
+        assertEquals(1, commentManager.getNearDuplicateComments().size());
+        assertEquals(2, commentManager.getNearDuplicateComments().get(0).size());
+    }
 }
@@ -0,0 +1,149 @@
+import exception.UsernameExistsException;
+import gateway.*;
+import org.junit.Test;
+import entities.Comment;
+import useCases.AccountManager;
+import useCases.CommentManager;
+import useCases.CredentialService;
+import useCases.PostManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConcurrencyStressTest {
+    private static final int THREADS = 8;
+    private static final int TASKS_PER_THREAD = 50;
+
+    /**
+     * Runs a task on each of THREADS threads, starting them all at once, and returns what each returned
+     */
+    private <T> List<T> runTogether(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AccountManager createAccountManager() {
+        IReader reader = new Reader("test/testData/testAccountData.txt");
+        IWriter writer = new Writer("test/testData/testAccountData.txt");
+        // a single iteration keeps the test about locking rather than hashing
+        CredentialService credentialService = new CredentialService(new Pbkdf2PasswordHash(1), THREADS, 1000);
+        return new AccountManager(reader, writer, new AccountSorter(), new BKTree(), credentialService);
+    }
+
+    @Test
+    public void testNoLostFollows() throws Exception {
+        AccountManager accountManager = createAccountManager();
+        accountManager.signUp("stressTarget", "password");
+        int adminFollowers = accountManager.countFollowersOf("admin");
+        int[] nextThread = {0};
+        runTogether(() -> {
+            int thread;
+            synchronized (nextThread) {
+                thread = nextThread[0]++;
+            }
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                String username = "stress" + thread + "_" + i;
+                accountManager.signUp(username, "password");
+                accountManager.follow(username, "stressTarget");
+                accountManager.follow(username, "admin");
+                if (i % 2 == 0) {
+                    accountManager.unfollow(username, "admin");
+                }
+            }
+            return null;
+        });
+        assertEquals(THREADS * TASKS_PER_THREAD, accountManager.countFollowersOf("stressTarget"));
+        assertEquals(adminFollowers + THREADS * TASKS_PER_THREAD / 2, accountManager.countFollowersOf("admin"));
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                String username = "stress" + thread + "_" + i;
+                assertTrue(accountManager.isFollowing(username, "stressTarget"));
+                assertTrue(accountManager.getFollowersOf("stressTarget").contains(username));
+                assertEquals(i % 2 != 0, accountManager.isFollowing(username, "admin"));
+                assertEquals(i % 2 != 0, accountManager.getFollowersOf("admin").contains(username));
+                assertEquals(i % 2 == 0 ? 1 : 2, accountManager.countFolloweesOf(username));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentSignUpOfSameUsername() throws Exception {
+        AccountManager accountManager = createAccountManager();
+        List<Boolean> results = runTogether(() -> {
+            try {
+                accountManager.signUp("stressDuplicate", "password");
+                return true;
+            } catch (UsernameExistsException e) {
+                return false;
+            }
+        });
+        int successes = 0;
+        for (boolean result : results) {
+            if (result) {
+                successes++;
+            }
+        }
+        assertEquals(1, successes);
+        assertTrue(accountManager.containsUser("stressDuplicate"));
+    }
+
+    @Test
+    public void testNoLostComments() throws Exception {
+        IReader reader = new Reader("test/testData/testCommentData.txt");
+        IWriter writer = new Writer("test/testData/testCommentData.txt");
+        CommentManager commentManager = new CommentManager(reader, writer, new CommentTimeSorter());
+        UUID postId = UUID.randomUUID();
+        runTogether(() -> {
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                commentManager.addComment(postId, "kept", "stressAuthor");
+                commentManager.deleteComment(commentManager.addComment(postId, "deleted", "stressAuthor"));
+            }
+            return null;
+        });
+        assertEquals(THREADS * TASKS_PER_THREAD, commentManager.getCommentsUnder(postId).size());
+        List<Comment> written = commentManager.getCommentsWrittenBy("stressAuthor");
+        assertEquals(THREADS * TASKS_PER_THREAD, written.size());
+        for (Comment comment : written) {
+            assertEquals("kept", comment.getContent());
+        }
+    }
+
+    @Test
+    public void testNoLostPosts() throws Exception {
+        IReader reader = new Reader("test/testData/testPostData.txt");
+        IWriter writer = new Writer("test/testData/testPostData.txt");
+        PostManager postManager = new PostManager(reader, writer, new PostTimeSorter());
+        runTogether(() -> {
+            for (int i = 0; i < TASKS_PER_THREAD; i++) {
+                postManager.addPost("title", "content " + i, "stressAuthor");
+            }
+            return null;
+        });
+        assertEquals(THREADS * TASKS_PER_THREAD, postManager.getPostsWrittenBy("stressAuthor").size());
+    }
+}
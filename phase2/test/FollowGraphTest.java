@@ -0,0 +1,117 @@
+import entities.FollowGraph;
+import entities.IdList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class FollowGraphTest {
+    @Test
+    public void testFollow() {
+        FollowGraph followGraph = new FollowGraph();
+        assertTrue(followGraph.follow("user1", "user2"));
+        assertFalse(followGraph.follow("user1", "user2"));
+        assertTrue(followGraph.isFollowing("user1", "user2"));
+        assertFalse(followGraph.isFollowing("user2", "user1"));
+        assertEquals(Set.of("user1"), followGraph.getFollowers("user2"));
+        assertEquals(Set.of("user2"), followGraph.getFollowees("user1"));
+    }
+
+    @Test
+    public void testUnfollowKeepsOldViews() {
+        FollowGraph followGraph = new FollowGraph();
+        followGraph.follow("user1", "user3");
+        followGraph.follow("user2", "user3");
+        Set<String> followers = followGraph.getFollowers("user3");
+        assertTrue(followGraph.unfollow("user1", "user3"));
+        assertFalse(followGraph.unfollow("user1", "user3"));
+        assertEquals(List.of("user1", "user2"), List.copyOf(followers));
+        assertEquals(Set.of("user2"), followGraph.getFollowers("user3"));
+    }
+
+    @Test
+    public void testRemove() {
+        FollowGraph followGraph = new FollowGraph();
+        followGraph.follow("user1", "user2");
+        followGraph.follow("user2", "user3");
+        followGraph.remove("user2");
+        assertTrue(followGraph.getFollowees("user1").isEmpty());
+        assertTrue(followGraph.getFollowers("user3").isEmpty());
+        followGraph.follow("user4", "user1");
+        assertEquals(Set.of("user4"), followGraph.getFollowers("user1"));
+        assertTrue(followGraph.getFollowers("user4").isEmpty());
+    }
+
+    @Test
+    public void testRemovedIdsNotReused() {
+        FollowGraph followGraph = new FollowGraph();
+        followGraph.follow("user1", "user2");
+        followGraph.follow("user2", "user3");
+        Set<String> followers = followGraph.getFollowers("user3");
+        int removedId = followGraph.getId("user2");
+        followGraph.remove("user2");
+        followGraph.follow("user4", "user3");
+        assertNotEquals(removedId, followGraph.getId("user4"));
+        assertNull(followGraph.getUsername(removedId));
+        // a view made before the removal still names the removed user
+        assertEquals(List.of("user2"), List.copyOf(followers));
+        assertEquals(List.of("user4"), List.copyOf(followGraph.getFollowers("user3")));
+    }
+
+    @Test
+    public void testRemoveInBatches() {
+        FollowGraph followGraph = new FollowGraph();
+        for (int i = 0; i < 5; i++) {
+            followGraph.follow("user" + i, "celebrity");
+        }
+        followGraph.follow("celebrity", "user0");
+        assertFalse(followGraph.remove("celebrity", 2));
+        assertTrue(followGraph.isDetaching());
+        assertEquals(-1, followGraph.getId("celebrity"));
+        assertTrue(followGraph.getFollowers("user0").isEmpty());
+        assertEquals(1, followGraph.countFollowees("user4"));
+
+        assertFalse(followGraph.detach(2));
+        assertTrue(followGraph.detach(2));
+        assertFalse(followGraph.isDetaching());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(followGraph.getFollowees("user" + i).isEmpty());
+        }
+    }
+
+    @Test
+    public void testUsernameDuringDetach() {
+        FollowGraph followGraph = new FollowGraph();
+        for (int i = 0; i < 5; i++) {
+            followGraph.follow("user" + i, "celebrity");
+        }
+        int removedId = followGraph.getId("celebrity");
+        assertFalse(followGraph.remove("celebrity", 2));
+        followGraph.follow("celebrity", "user0");
+        // user4 still lists the removed user until the follow is detached, but the id no longer names anyone
+        assertTrue(followGraph.getFolloweeIds(followGraph.getId("user4")).contains(removedId));
+        assertNull(followGraph.getUsername(removedId));
+        assertNotEquals(removedId, followGraph.getId("celebrity"));
+        assertEquals("celebrity", followGraph.getUsername(followGraph.getId("celebrity")));
+    }
+
+    @Test
+    public void testIntersect() {
+        FollowGraph followGraph = new FollowGraph();
+        for (int i = 0; i < 100; i++) {
+            followGraph.follow("user" + i, "celebrity");
+        }
+        followGraph.follow("viewer", "user1");
+        followGraph.follow("viewer", "user50");
+        followGraph.follow("viewer", "user99");
+        followGraph.follow("viewer", "reader");
+        IdList followees = followGraph.getFolloweeIds(followGraph.getId("viewer"));
+        IdList followers = followGraph.getFollowerIds(followGraph.getId("celebrity"));
+        List<String> sample = new ArrayList<>();
+        assertEquals(3, followGraph.intersect(followees, followers, sample, 2));
+        assertEquals(List.of("user1", "user50"), sample);
+    }
+}
@@ -0,0 +1,61 @@
+import entities.IdList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class IdListTest {
+    @Test
+    public void testWithAndWithout() {
+        IdList list = IdList.EMPTY;
+        IdList withOne = list.with(5);
+        assertEquals(0, list.size());
+        assertEquals(1, withOne.size());
+        assertSame(withOne, withOne.with(5));
+        assertSame(withOne, withOne.without(6));
+        assertTrue(withOne.contains(5));
+        assertEquals(-1, withOne.indexOf(3));
+        assertEquals(-2, withOne.indexOf(7));
+        assertSame(IdList.EMPTY, withOne.without(5));
+    }
+
+    @Test
+    public void testMatchesSortedSet() {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+        IdList list = IdList.EMPTY;
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(1000);
+            IdList previous = list;
+            int previousSize = previous.size();
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                list = list.without(id);
+            } else {
+                expected.add(id);
+                list = list.with(id);
+            }
+            // lists are never changed in place
+            assertEquals(previousSize, previous.size());
+        }
+        assertEquals(expected.size(), list.size());
+        List<Integer> ids = List.copyOf(expected);
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals((int) ids.get(i), list.get(i));
+            assertEquals(i, list.indexOf(ids.get(i)));
+            assertEquals((int) ids.get(i), iterator.nextInt());
+        }
+        assertFalse(iterator.hasNext());
+        for (int id = 0; id < 1000; id++) {
+            if (!expected.contains(id)) {
+                assertEquals(-expected.headSet(id).size() - 1, list.indexOf(id));
+            }
+        }
+        assertArrayEquals(IdList.of(list.toArray()).toArray(), list.toArray());
+    }
+}
@@ -0,0 +1,54 @@
+import gateway.*;
+import org.junit.Test;
+import useCases.AccountManager;
+import useCases.CommentManager;
+import useCases.LoginHistoryManager;
+import useCases.ManagerData;
+import useCases.PostManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LoginHistoryManagerTest {
+    @Test
+    public void testRecordLogin() {
+        IReader reader = new Reader("test/testData/testHistoryData.txt");
+        IWriter writer = new Writer("test/testData/testHistoryData.txt");
+        LoginHistoryManager loginHistoryManager = new LoginHistoryManager(reader, writer);
+        loginHistoryManager.recordLogin("admin");
+        loginHistoryManager.recordLogin("admin");
+        assertEquals(2, loginHistoryManager.countRecentLogins("admin"));
+        assertEquals(1, loginHistoryManager.getRecentLogins("admin", 1, 10).size());
+    }
+
+    @Test
+    public void testDeleteHistoryOf() {
+        IReader reader = new Reader("test/testData/testHistoryData.txt");
+        IWriter writer = new Writer("test/testData/testHistoryData.txt");
+        LoginHistoryManager loginHistoryManager = new LoginHistoryManager(reader, writer);
+        loginHistoryManager.recordLogin("admin");
+        loginHistoryManager.deleteHistoryOf("admin");
+        assertEquals(0, loginHistoryManager.countRecentLogins("admin"));
+        assertTrue(loginHistoryManager.getRecentLogins("admin", 0, 10).isEmpty());
+    }
+
+    @Test
+    public void testLegacyHistory() {
+        // the legacy account data must not be overwritten by the migration
+        IWriter discard = object -> { };
+        AccountManager accountManager = new AccountManager(
+                new Reader("test/testData/testLegacyAccountData.txt"), discard, new AccountSorter());
+        LoginHistoryManager loginHistoryManager = new LoginHistoryManager(
+                new Reader("test/testData/testHistoryData.txt"), discard);
+        new ManagerData(accountManager,
+                new PostManager(new Reader("test/testData/testPostData.txt"), discard, new PostTimeSorter()),
+                new CommentManager(new Reader("test/testData/testCommentData.txt"), discard, new CommentTimeSorter()),
+                loginHistoryManager);
+        assertEquals(List.of(LocalDateTime.of(2020, 11, 2, 10, 15), LocalDateTime.of(2020, 11, 1, 9, 30)),
+                loginHistoryManager.getRecentLogins("alice", 0, 10));
+        assertEquals(0, loginHistoryManager.countRecentLogins("bob"));
+        assertTrue(accountManager.takeLegacyHistories().isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+import entities.LoginHistory;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LoginHistoryTest {
+    @Test
+    public void testGetRecentLogins() {
+        LoginHistory history = new LoginHistory();
+        LocalDateTime time = LocalDateTime.of(2022, 8, 1, 12, 0);
+        history.record(time);
+        history.record(time.plusHours(1));
+        history.record(time.plusHours(2));
+        assertEquals(List.of(time.plusHours(2), time.plusHours(1)), history.getRecentLogins(0, 2));
+        assertEquals(List.of(time), history.getRecentLogins(2, 2));
+        assertEquals(3, history.countRecentLogins());
+    }
+
+    @Test
+    public void testOldLoginsAreRolledUp() {
+        LoginHistory history = new LoginHistory();
+        LocalDateTime time = LocalDateTime.of(2022, 8, 1, 12, 0);
+        for (int i = 0; i < LoginHistory.MAX_RECENT_LOGINS + 3; i++) {
+            history.record(time.plusHours(i));
+        }
+        assertEquals(LoginHistory.MAX_RECENT_LOGINS, history.countRecentLogins());
+        assertEquals(time.plusHours(LoginHistory.MAX_RECENT_LOGINS + 2), history.getRecentLogins(0, 1).get(0));
+        assertEquals(Integer.valueOf(3), history.getDailyCounts().get(LocalDate.of(2022, 8, 1)));
+        assertEquals(LoginHistory.MAX_RECENT_LOGINS + 3, history.countLogins());
+    }
+
+    @Test
+    public void testDaysAreDroppedByDate() {
+        LoginHistory history = new LoginHistory();
+        LocalDateTime time = LocalDateTime.of(2022, 8, 1, 12, 0);
+        history.record(time);
+        for (int i = 0; i < LoginHistory.MAX_RECENT_LOGINS; i++) {
+            history.record(time.plusDays(LoginHistory.MAX_DAYS + 1).plusMinutes(i));
+        }
+        // the first login was rolled up into a day more than MAX_DAYS before the latest login
+        assertTrue(history.getDailyCounts().isEmpty());
+        assertEquals(LoginHistory.MAX_RECENT_LOGINS + 1, history.countLogins());
+    }
+}
@@ -0,0 +1,93 @@
+import org.junit.Test;
+import useCases.LoginThrottle;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoginThrottleTest {
+    private final long[] now = {0};
+    private final LoginThrottle throttle = new LoginThrottle(100, () -> now[0]);
+
+    @Test
+    public void testUsernameBurst() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(throttle.tryAcquire("user", "1.1.1." + i));
+        }
+        assertFalse(throttle.tryAcquire("user", "1.1.1.9"));
+        assertTrue(throttle.tryAcquire("admin", "1.1.1.9"));
+
+        now[0] += TimeUnit.SECONDS.toNanos(20);
+        assertTrue(throttle.tryAcquire("user", "1.1.1.9"));
+        assertFalse(throttle.tryAcquire("user", "1.1.1.9"));
+    }
+
+    @Test
+    public void testAddressBurst() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(throttle.tryAcquire("user" + i, "1.1.1.1"));
+        }
+        assertFalse(throttle.tryAcquire("user20", "1.1.1.1"));
+        assertTrue(throttle.tryAcquire("user20", "2.2.2.2"));
+        assertEquals(1L, throttle.getStatistics().get("rejectedByAddress"));
+    }
+
+    @Test
+    public void testSignUpSharesAddressBucket() {
+        for (int i = 0; i < 19; i++) {
+            assertTrue(throttle.tryAcquireSignUp("1.1.1.1"));
+        }
+        assertTrue(throttle.tryAcquire("user", "1.1.1.1"));
+        assertFalse(throttle.tryAcquireSignUp("1.1.1.1"));
+        assertTrue(throttle.tryAcquireSignUp("2.2.2.2"));
+    }
+
+    @Test
+    public void testRejectedAttemptsDoNotUseOtherBucket() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(throttle.tryAcquire("user", "1.1.1.1"));
+        }
+        // attempts turned away for the username do not use up the address
+        for (int i = 0; i < 20; i++) {
+            assertFalse(throttle.tryAcquire("user", "1.1.1.1"));
+        }
+        for (int i = 0; i < 15; i++) {
+            assertTrue(throttle.tryAcquire("user" + i, "1.1.1.1"));
+        }
+        assertFalse(throttle.tryAcquire("user15", "1.1.1.1"));
+    }
+
+    @Test
+    public void testLockout() {
+        for (int i = 0; i < 9; i++) {
+            throttle.recordFailure("user", "1.1.1.1");
+        }
+        throttle.recordSuccess("user", "1.1.1.1");
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure("user", "1.1.1.1");
+        }
+        assertFalse(throttle.tryAcquire("user", "1.1.1.1"));
+        assertEquals(1L, throttle.getStatistics().get("lockouts"));
+        // only the address that failed is locked out of the username
+        assertTrue(throttle.tryAcquire("user", "2.2.2.2"));
+
+        now[0] += TimeUnit.MINUTES.toNanos(15);
+        assertTrue(throttle.tryAcquire("user", "1.1.1.1"));
+    }
+
+    @Test
+    public void testLockoutsAreNotEvicted() {
+        LoginThrottle smallThrottle = new LoginThrottle(2, () -> now[0]);
+        for (int i = 0; i < 10; i++) {
+            smallThrottle.recordFailure("user", "1.1.1.1");
+            smallThrottle.recordFailure("admin", "1.1.1.1");
+        }
+        // no more failures can be tracked while both lockouts last, so they are not forgotten
+        smallThrottle.recordFailure("other", "1.1.1.1");
+        assertEquals(2, smallThrottle.getStatistics().get("trackedFailures"));
+        assertFalse(smallThrottle.tryAcquire("user", "1.1.1.1"));
+        assertFalse(smallThrottle.tryAcquire("admin", "1.1.1.1"));
+    }
+}
@@ -0,0 +1,28 @@
+import gateway.IPasswordHasher;
+import gateway.PasswordHash;
+import gateway.Pbkdf2PasswordHash;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Pbkdf2PasswordHashTest {
+    @Test
+    public void testVerify() {
+        IPasswordHasher hasher = new Pbkdf2PasswordHash(1000);
+        String hash = hasher.hash("password");
+        assertNotEquals(hash, hasher.hash("password"));
+        assertTrue(hasher.verify("password", hash));
+        assertFalse(hasher.verify("Password", hash));
+        assertFalse(hasher.needsRehash(hash));
+    }
+
+    @Test
+    public void testVerifyLegacyHash() {
+        IPasswordHasher hasher = new Pbkdf2PasswordHash(1000);
+        String legacyHash = new PasswordHash().hash("password");
+        assertTrue(hasher.verify("password", legacyHash));
+        assertFalse(hasher.verify("wrong", legacyHash));
+        assertTrue(hasher.needsRehash(legacyHash));
+        assertTrue(new Pbkdf2PasswordHash(2000).needsRehash(hasher.hash("password")));
+    }
+}
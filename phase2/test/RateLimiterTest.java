@@ -0,0 +1,38 @@
+import org.junit.Test;
+import useCases.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateLimiterTest {
+    private final long[] now = {0};
+    private final RateLimiter limiter = new RateLimiter(3, TimeUnit.SECONDS.toNanos(1), 2, () -> now[0]);
+
+    @Test
+    public void testBurst() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("user"));
+        }
+        assertFalse(limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("other"));
+
+        now[0] += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(limiter.tryAcquire("user"));
+        assertFalse(limiter.tryAcquire("user"));
+    }
+
+    @Test
+    public void testNewKeysRejectedWhenFull() {
+        assertTrue(limiter.tryAcquire("user1"));
+        assertTrue(limiter.tryAcquire("user2"));
+        assertFalse(limiter.tryAcquire("user3"));
+
+        // once the buckets of the other keys are full again, they are forgotten to make room
+        now[0] += TimeUnit.SECONDS.toNanos(1);
+        assertTrue(limiter.tryAcquire("user3"));
+        assertEquals(1, limiter.getStatistics().get("trackedKeys"));
+    }
+}
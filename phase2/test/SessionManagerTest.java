@@ -0,0 +1,69 @@
+import org.junit.Test;
+import useCases.SessionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SessionManagerTest {
+    private final long[] now = {0};
+    private final SessionManager sessionManager = new SessionManager(10, () -> now[0]);
+
+    @Test
+    public void testCreate() {
+        String token1 = sessionManager.create("user1");
+        String token2 = sessionManager.create("user1");
+        assertNotEquals(token1, token2);
+        assertEquals("user1", sessionManager.getUsername(token1));
+        assertEquals("user1", sessionManager.getUsername(token2));
+        assertNull(sessionManager.getUsername("not a token"));
+        assertNull(sessionManager.getUsername(null));
+    }
+
+    @Test
+    public void testIdleExpiry() {
+        String token1 = sessionManager.create("user1");
+        String token2 = sessionManager.create("user2");
+        now[0] += TimeUnit.MINUTES.toNanos(20);
+        assertEquals("user1", sessionManager.getUsername(token1));
+        now[0] += TimeUnit.MINUTES.toNanos(20);
+        assertEquals("user1", sessionManager.getUsername(token1));
+        assertNull(sessionManager.getUsername(token2));
+    }
+
+    @Test
+    public void testInvalidate() {
+        String token1 = sessionManager.create("user1");
+        String token2 = sessionManager.create("user1");
+        String token3 = sessionManager.create("user2");
+        sessionManager.invalidate(token1);
+        assertNull(sessionManager.getUsername(token1));
+        assertEquals("user1", sessionManager.getUsername(token2));
+        sessionManager.invalidateAll(List.of("user1"));
+        assertNull(sessionManager.getUsername(token2));
+        assertEquals("user2", sessionManager.getUsername(token3));
+    }
+
+    @Test
+    public void testRejectWhenFull() {
+        String first = sessionManager.create("user0");
+        for (int i = 1; i < 10; i++) {
+            now[0]++;
+            sessionManager.create("user" + i);
+        }
+        // sessions in use are kept rather than making room for a new one
+        assertNull(sessionManager.create("user10"));
+        assertEquals(10, sessionManager.getStatistics().get("active"));
+        assertEquals(1L, sessionManager.getStatistics().get("rejected"));
+        assertEquals("user0", sessionManager.getUsername(first));
+
+        now[0] += TimeUnit.MINUTES.toNanos(25);
+        sessionManager.getUsername(first);
+        now[0] += TimeUnit.MINUTES.toNanos(10);
+        String token = sessionManager.create("user10");
+        assertEquals("user10", sessionManager.getUsername(token));
+        assertEquals("user0", sessionManager.getUsername(first));
+        assertEquals(2, sessionManager.getStatistics().get("active"));
+    }
+}
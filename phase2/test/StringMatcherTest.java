@@ -0,0 +1,33 @@
+import gateway.StringMatcher;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StringMatcherTest {
+    @Test
+    public void testEditDistance() {
+        StringMatcher stringMatcher = new StringMatcher();
+        assertEquals(3, stringMatcher.editDistance("kitten", "sitting"));
+        assertEquals(3, stringMatcher.editDistance("sitting", "kitten"));
+        assertEquals(5, stringMatcher.editDistance("", "admin"));
+        assertEquals(0, stringMatcher.editDistance("admin", "admin"));
+    }
+
+    @Test
+    public void testEditDistanceOfLongStrings() {
+        StringMatcher stringMatcher = new StringMatcher();
+        String word1 = "a".repeat(70) + "b";
+        String word2 = "a".repeat(69) + "cb";
+        assertEquals(1, stringMatcher.editDistance(word1, word2));
+        assertEquals(2, stringMatcher.editDistance("na\u00efve username", "naive usernames"));
+    }
+
+    @Test
+    public void testEditDistanceWithMaxDistance() {
+        StringMatcher stringMatcher = new StringMatcher();
+        assertEquals(3, stringMatcher.editDistance("kitten", "sitting", 3));
+        assertEquals(3, stringMatcher.editDistance("kitten", "sitting", 2));
+        assertEquals(1, stringMatcher.editDistance("user", "zzzzzzzz", 0));
+        assertEquals(4, stringMatcher.editDistance("a".repeat(80), "b".repeat(80), 3));
+    }
+}
@@ -0,0 +1,32 @@
+import gateway.TrigramIndex;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrigramIndexTest {
+    @Test
+    public void testSearchFindsSimilarUsernames() {
+        TrigramIndex index = new TrigramIndex();
+        index.add("alice");
+        index.add("alicia");
+        index.add("bob");
+        List<String> candidates = index.search("alice", 1);
+        assertTrue(candidates.contains("alice"));
+        assertTrue(candidates.contains("alicia"));
+        assertFalse(candidates.contains("bob"));
+    }
+
+    @Test
+    public void testCommonQueryIsNotSearched() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i <= 10000; i++) {
+            index.add("a" + i);
+        }
+        index.add("bob");
+        // every trigram of "a" is shared by more than 10000 usernames
+        assertNull(index.search("a", 5));
+        assertEquals(List.of("bob"), index.search("bob", 5));
+    }
+}
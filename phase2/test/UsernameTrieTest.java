@@ -0,0 +1,36 @@
+import gateway.UsernameTrie;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UsernameTrieTest {
+    @Test
+    public void testStartingWith() {
+        UsernameTrie trie = new UsernameTrie();
+        trie.add("bob");
+        trie.add("alice");
+        trie.add("bobby");
+        trie.add("al");
+        trie.add("bea");
+        assertEquals(List.of("al", "alice"), trie.startingWith("al", 10));
+        assertEquals(List.of("bea", "bob", "bobby"), trie.startingWith("b", 10));
+        assertEquals(List.of("al", "alice", "bea"), trie.startingWith("", 3));
+        assertTrue(trie.startingWith("carl", 10).isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        UsernameTrie trie = new UsernameTrie();
+        trie.add("bob");
+        trie.add("bobby");
+        trie.remove("bobby");
+        assertEquals(List.of("bob"), trie.startingWith("bo", 10));
+        trie.remove("bob");
+        trie.remove("nobody");
+        assertTrue(trie.startingWith("", 10).isEmpty());
+        trie.add("bobby");
+        assertEquals(List.of("bobby"), trie.startingWith("bob", 10));
+    }
+}
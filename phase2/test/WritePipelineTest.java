@@ -0,0 +1,168 @@
+import org.junit.Test;
+import useCases.WritePipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WritePipelineTest {
+    @Test
+    public void testWritesAppliedInOrder() throws Exception {
+        List<Integer> applied = new ArrayList<>();
+        WritePipeline pipeline = new WritePipeline(100, 10, () -> { });
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int value = i;
+            futures.add(pipeline.submit(() -> {
+                applied.add(value);
+                return value * 2;
+            }));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i * 2, (int) futures.get(i).join());
+        }
+        pipeline.close();
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, (int) applied.get(i));
+        }
+    }
+
+    @Test
+    public void testFlushOncePerBatch() throws Exception {
+        CountDownLatch firstFlush = new CountDownLatch(1);
+        AtomicInteger flushes = new AtomicInteger();
+        WritePipeline pipeline = new WritePipeline(100, 100, () -> {
+            flushes.incrementAndGet();
+            try {
+                firstFlush.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Object> first = pipeline.submit(() -> null);
+        // wait until the first write is being flushed, so that the next ones queue up behind it
+        while (flushes.get() == 0) {
+            Thread.sleep(1);
+        }
+        List<CompletableFuture<Object>> rest = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rest.add(pipeline.submit(() -> null));
+        }
+        assertFalse(first.isDone());
+        firstFlush.countDown();
+        for (CompletableFuture<Object> future : rest) {
+            future.join();
+        }
+        pipeline.close();
+        assertEquals(21L, pipeline.getStatistics().get("applied"));
+        assertEquals(2L, pipeline.getStatistics().get("batches"));
+        assertEquals(20L, pipeline.getStatistics().get("largestBatch"));
+        assertEquals(2, flushes.get());
+    }
+
+    @Test
+    public void testFailedWriteDoesNotStopWriter() throws Exception {
+        WritePipeline pipeline = new WritePipeline(10, 10, () -> { });
+        try {
+            pipeline.write(() -> {
+                throw new IllegalStateException("failed");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertEquals("written", pipeline.write(() -> "written"));
+        // a write made by a write is applied at once instead of waiting behind it
+        assertEquals("nested", pipeline.write(() -> pipeline.write(() -> "nested")));
+        pipeline.close();
+    }
+
+    @Test
+    public void testFailedFlushFailsBatch() throws Exception {
+        AtomicInteger flushes = new AtomicInteger();
+        WritePipeline pipeline = new WritePipeline(10, 10, () -> {
+            if (flushes.incrementAndGet() == 1) {
+                throw new IllegalStateException("disk full");
+            }
+        });
+        try {
+            pipeline.write(() -> "unsaved");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+        assertEquals("saved", pipeline.write(() -> "saved"));
+        pipeline.close();
+        assertEquals(1L, pipeline.getStatistics().get("failedFlushes"));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        WritePipeline pipeline = new WritePipeline(10, 10, () -> { });
+        CompletableFuture<String> queued = pipeline.submit(() -> "queued");
+        pipeline.close();
+        assertEquals("queued", queued.join());
+        try {
+            pipeline.submit(() -> "rejected").join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testCloseWhileQueueFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WritePipeline pipeline = new WritePipeline(1, 1, () -> { });
+        CompletableFuture<String> blocking = pipeline.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "blocking";
+        });
+        // wait for the writer to take the first command, so that the second fills the queue
+        while (pipeline.getStatistics().get("queued").equals(1)) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<String> queued = pipeline.submit(() -> "queued");
+        List<CompletableFuture<String>> waiting = new ArrayList<>();
+        Thread submitter = new Thread(() -> waiting.add(pipeline.submit(() -> "waiting")));
+        submitter.start();
+        while (submitter.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        Thread closer = new Thread(() -> {
+            try {
+                pipeline.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        closer.start();
+        while (closer.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        // a caller waiting for space does not keep others from finding the pipeline closed
+        try {
+            pipeline.submit(() -> "rejected").join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        release.countDown();
+        submitter.join();
+        closer.join();
+        assertEquals("blocking", blocking.join());
+        assertEquals("queued", queued.join());
+        assertEquals("waiting", waiting.get(0).join());
+    }
+}